@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Наполнение хранилищ для бенчмарков: пакетная вставка вместо сервисов, чтобы подготовка
+ * миллионов сущностей не растягивалась на минуты.
+ */
+final class BenchmarkData {
+    static final int SAMPLE_SIZE = 4096;
+    private static final int BATCH_SIZE = 10_000;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Без Spring Logback работает в конфигурации по умолчанию (DEBUG в консоль),
+     * и отладочные логи сервисов измерялись бы вместе с кодом.
+     */
+    static void quietLogs() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+    }
+
+    static User user(String key) {
+        User user = new User();
+        user.setLogin(key);
+        user.setName(key);
+        user.setEmail(key + "@ya.ru");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    static Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание фильма " + name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(90);
+        return film;
+    }
+
+    static void addUsers(UserStorage storage, int count) {
+        List<User> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= count; i++) {
+            batch.add(user("user" + i));
+            if (batch.size() == BATCH_SIZE || i == count) {
+                storage.addAll(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+    }
+
+    static void addFilms(FilmStorage storage, int count) {
+        List<Film> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= count; i++) {
+            batch.add(film("Фильм " + i));
+            if (batch.size() == BATCH_SIZE || i == count) {
+                storage.addAll(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Выдаёт друзей выборке пользователей. Связи задаются напрямую и без взаимности:
+     * для чтения важны только размер списков и разброс ID по всему хранилищу.
+     */
+    static long[] befriendSample(UserStorage storage, int usersCount, int friendsPerUser, SplittableRandom random) {
+        long[] sample = sampleIds(usersCount, random);
+        for (long userId : sample) {
+            storage.getById(userId).setFriends(SortedLongSet.of(random.longs(friendsPerUser, 1, usersCount + 1L).toArray()));
+        }
+        return sample;
+    }
+
+    static long[] sampleIds(int count, SplittableRandom random) {
+        return random.longs(SAMPLE_SIZE, 1, count + 1L).toArray();
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommonFriendsBenchmark {
+    @Param({"1000", "5000", "20000"})
+    private int friendsCount;
+
+    private Set<Long> firstHashSet;
+    private Set<Long> secondHashSet;
+    private SortedLongSet firstSortedSet;
+    private SortedLongSet secondSortedSet;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        long userSpace = friendsCount * 4L;
+        long[] first = random.longs(friendsCount, 1, userSpace).toArray();
+        long[] second = random.longs(friendsCount, 1, userSpace).toArray();
+        firstSortedSet = SortedLongSet.of(first);
+        secondSortedSet = SortedLongSet.of(second);
+        firstHashSet = new HashSet<>(firstSortedSet);
+        secondHashSet = new HashSet<>(secondSortedSet);
+    }
+
+    @Benchmark
+    public Set<Long> hashSetRetainAll() {
+        Set<Long> common = new HashSet<>(new HashSet<>(firstHashSet));
+        common.retainAll(new HashSet<>(secondHashSet));
+        return common;
+    }
+
+    @Benchmark
+    public SortedLongSet sortedArrayIntersect() {
+        return firstSortedSet.intersect(secondSortedSet);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EdgeStore;
+import ru.yandex.practicum.filmorate.storage.OffHeapEdgeStore;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdGenerator;
+import ru.yandex.practicum.filmorate.storage.persistence.MutationLog;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение списков друзей из кучи и из {@link OffHeapEdgeStore}: число друзей, проверка дружбы
+ * и копия списка, которую получают сервисы. Друзья выдаются через хранилище, поэтому списки
+ * в режиме вне кучи действительно лежат в памяти хранилища связей.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class EdgeStoreBenchmark {
+    private static final int USERS = 100_000;
+
+    @Param({"heap", "off-heap"})
+    private String edges;
+
+    @Param({"20", "500"})
+    private int friendsPerUser;
+
+    private User[] users;
+    private long[] probes;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.quietLogs();
+        EdgeStore friendEdges = edges.equals("heap") ? EdgeStore.HEAP
+                : new OffHeapEdgeStore(64L << 20, 4L << 30, 4);
+        InMemoryUserStorage storage = new InMemoryUserStorage(new SequenceIdGenerator(), MutationLog.NOOP, friendEdges);
+        BenchmarkData.addUsers(storage, USERS);
+        SplittableRandom random = new SplittableRandom(42);
+        long[] sample = BenchmarkData.sampleIds(USERS, random);
+        users = new User[sample.length];
+        probes = new long[sample.length];
+        for (int i = 0; i < sample.length; i++) {
+            long userId = sample[i];
+            users[i] = storage.getById(userId);
+            long[] friendIds = random.longs(friendsPerUser, 1, USERS + 1L).filter(id -> id != userId).toArray();
+            for (long friendId : friendIds) {
+                storage.addFriend(userId, friendId);
+            }
+            probes[i] = friendIds[random.nextInt(friendIds.length)];
+        }
+    }
+
+    @Benchmark
+    public int friendsCount() {
+        return users[nextIndex()].friendSet().size();
+    }
+
+    @Benchmark
+    public boolean hasFriend() {
+        int index = nextIndex();
+        return users[index].friendSet().contains(probes[index]);
+    }
+
+    @Benchmark
+    public long friendsSum() {
+        SortedLongSet friends = users[nextIndex()].getFriends();
+        long sum = 0;
+        for (int i = 0; i < friends.size(); i++) {
+            sum += friends.get(i);
+        }
+        return sum;
+    }
+
+    private int nextIndex() {
+        return cursor++ & (BenchmarkData.SAMPLE_SIZE - 1);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ServiceFixtures;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Популярные фильмы и лайки через сервис на хранилищах в памяти. Лайки получает выборка фильмов
+ * с разным числом лайков, поэтому индекс популярности не вырожден. 10M фильмов запускаются отдельно:
+ * {@code -p entities=10000000 -jvmArgsAppend -Xmx16g}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FilmServiceBenchmark {
+    private static final int LIKED_FILMS = 10_000;
+    private static final int MAX_LIKES = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    private int entities;
+
+    @Param({"10", "100"})
+    private int popularCount;
+
+    private FilmService filmService;
+    private long[] filmIds;
+    private long[] userIds;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.quietLogs();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        BenchmarkData.addUsers(userStorage, entities);
+        BenchmarkData.addFilms(filmStorage, entities);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < Math.min(LIKED_FILMS, entities); i++) {
+            long filmId = random.nextLong(1, entities + 1L);
+            List<Long> likedBy = random.longs(random.nextInt(MAX_LIKES), 1, entities + 1L).boxed().toList();
+            filmStorage.applyLikeChanges(filmId, likedBy, List.of());
+        }
+        filmService = ServiceFixtures.filmService(filmStorage, ServiceFixtures.userService(userStorage));
+        filmIds = BenchmarkData.sampleIds(entities, random);
+        userIds = BenchmarkData.sampleIds(entities, random);
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmService.getPopularFilms(popularCount);
+    }
+
+    /**
+     * Лайк и его снятие: пара сохраняет размер данных неизменным между итерациями.
+     */
+    @Benchmark
+    public Film addAndRemoveLike() {
+        int i = cursor++ & (BenchmarkData.SAMPLE_SIZE - 1);
+        long filmId = filmIds[i];
+        long userId = userIds[i];
+        Film film = filmService.getFilmById(filmId);
+        if (film.hasLike(userId)) {
+            return film;
+        }
+        filmService.addLike(filmId, userId);
+        return filmService.removeLike(filmId, userId);
+    }
+}
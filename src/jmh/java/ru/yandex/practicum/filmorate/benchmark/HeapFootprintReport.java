@@ -0,0 +1,165 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.storage.ChunkedIdMap;
+import ru.yandex.practicum.filmorate.storage.OffHeapEdgeStore;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdGenerator;
+import ru.yandex.practicum.filmorate.storage.persistence.MutationLog;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Занимаемая куча на сущность и на связь: по очереди строит структуру, снимает размер кучи после сборки мусора
+ * и печатает байты на элемент и мегабайты на миллион элементов. Для сравнения измеряются множества
+ * {@code HashSet<Long>} и {@link SortedLongSet} с тем же распределением связей, а также индекс по ID
+ * на {@link ConcurrentSkipListMap} и на {@link ChunkedIdMap}. Хранилища измеряются дважды: со связями в куче
+ * и в {@link OffHeapEdgeStore}; для второго случая отдельно печатается занятая память вне кучи.
+ * <p>
+ * Параметры передаются как key=value: entities (сущностей, по умолчанию 1000000), edges (связей, 5000000),
+ * degree (связей у одного владельца, 10).
+ */
+public class HeapFootprintReport {
+    private static final Object VALUE = new Object();
+
+    private final int entities;
+    private final int edges;
+    private final int degree;
+
+    private HeapFootprintReport(int entities, int edges, int degree) {
+        this.entities = entities;
+        this.edges = edges;
+        this.degree = degree;
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        HeapFootprintReport report = new HeapFootprintReport(
+                Integer.parseInt(options.getOrDefault("entities", "1000000")),
+                Integer.parseInt(options.getOrDefault("edges", "5000000")),
+                Integer.parseInt(options.getOrDefault("degree", "10")));
+        report.run();
+        report.runOffHeap();
+    }
+
+    private void run() {
+        BenchmarkData.quietLogs();
+        System.out.printf("%-48s %12s %14s %12s%n", "структура", "элементов", "байт/элемент", "МБ на 1M");
+        measure("связи: HashSet<Long>", edges, () -> {
+            Set<?>[] sets = new Set<?>[edges / degree];
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < sets.length; i++) {
+                Set<Long> set = new HashSet<>();
+                random.longs(degree, 1, entities + 1L).forEach(set::add);
+                sets[i] = set;
+            }
+            return sets;
+        });
+        measure("связи: SortedLongSet", edges, () -> {
+            SortedLongSet[] sets = new SortedLongSet[edges / degree];
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < sets.length; i++) {
+                sets[i] = SortedLongSet.of(random.longs(degree, 1, entities + 1L).toArray());
+            }
+            return sets;
+        });
+        measure("индекс по ID: ConcurrentSkipListMap", entities, () -> {
+            ConcurrentSkipListMap<Long, Object> map = new ConcurrentSkipListMap<>();
+            for (long id = 1; id <= entities; id++) {
+                map.put(id, VALUE);
+            }
+            return map;
+        });
+        measure("индекс по ID: ChunkedIdMap", entities, () -> {
+            ChunkedIdMap<Object> map = new ChunkedIdMap<>();
+            for (long id = 1; id <= entities; id++) {
+                map.put(id, VALUE);
+            }
+            return map;
+        });
+
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        measureStorages("", new InMemoryFilmStorage(), new InMemoryUserStorage());
+    }
+
+    private void runOffHeap() {
+        OffHeapEdgeStore likeEdges = offHeapStore();
+        OffHeapEdgeStore likedFilmEdges = offHeapStore();
+        OffHeapEdgeStore friendEdges = offHeapStore();
+        measureStorages(" вне кучи", new InMemoryFilmStorage(new SequenceIdGenerator(), MutationLog.NOOP,
+                likeEdges, likedFilmEdges), new InMemoryUserStorage(new SequenceIdGenerator(), MutationLog.NOOP,
+                friendEdges));
+        System.out.printf("%-48s %12d %14.1f%n", "память вне кучи: лайк (с обратным индексом)", edges,
+                (double) (likeEdges.usedBytes() + likedFilmEdges.usedBytes()) / edges);
+        System.out.printf("%-48s %12d %14.1f%n", "память вне кучи: дружба (обе стороны)", edges,
+                (double) friendEdges.usedBytes() / edges);
+    }
+
+    private void measureStorages(String suffix, InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage) {
+        measure("InMemoryFilmStorage" + suffix + ": фильм", entities, () -> {
+            BenchmarkData.addFilms(filmStorage, entities);
+            return filmStorage;
+        });
+        measure("InMemoryFilmStorage" + suffix + ": лайк", edges, () -> {
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < edges / degree; i++) {
+                List<Long> likedBy = random.longs(degree, 1, entities + 1L).boxed().toList();
+                filmStorage.applyLikeChanges(random.nextLong(1, entities + 1L), likedBy, List.of());
+            }
+            return filmStorage;
+        });
+        measure("InMemoryUserStorage" + suffix + ": пользователь", entities, () -> {
+            BenchmarkData.addUsers(userStorage, entities);
+            return userStorage;
+        });
+        measure("InMemoryUserStorage" + suffix + ": дружба", edges, () -> {
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < edges; i++) {
+                long userId = random.nextLong(1, entities + 1L);
+                long friendId = random.nextLong(1, entities + 1L);
+                if (userId != friendId) {
+                    userStorage.addFriend(userId, friendId);
+                }
+            }
+            return userStorage;
+        });
+        Reference.reachabilityFence(filmStorage);
+        Reference.reachabilityFence(userStorage);
+    }
+
+    private static OffHeapEdgeStore offHeapStore() {
+        return new OffHeapEdgeStore(64L << 20, 1L << 30, 4);
+    }
+
+    // Число элементов — запрошенное; совпадающие случайные связи отбрасываются, поэтому оценка для связей сверху
+    private void measure(String name, long count, Supplier<Object> build) {
+        long before = usedHeap();
+        Object structure = build.get();
+        long after = usedHeap();
+        Reference.reachabilityFence(structure);
+        double bytesPerElement = (double) (after - before) / count;
+        System.out.printf("%-48s %12d %14.1f %12.1f%n", name, count, bytesPerElement,
+                bytesPerElement * 1_000_000 / (1024 * 1024));
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
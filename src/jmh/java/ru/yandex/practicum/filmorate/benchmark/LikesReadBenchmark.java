@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает чтение лайков через копирующий геттер (прежняя модель на ConcurrentHashMap)
+ * и через опубликованный снимок SortedLongSet. Аллокации видны с {@code -prof gc}:
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec -Djmh.include=LikesRead -Djmh.options="-prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LikesReadBenchmark {
+    @Param({"100", "10000"})
+    private int likesCount;
+
+    private Set<Long> concurrentLikes;
+    private Film film;
+    private long probe;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        long[] userIds = random.longs(likesCount, 1, likesCount * 4L).toArray();
+        concurrentLikes = ConcurrentHashMap.newKeySet();
+        film = new Film();
+        for (long userId : userIds) {
+            concurrentLikes.add(userId);
+            film.addLike(userId);
+        }
+        probe = userIds[userIds.length / 2];
+    }
+
+    @Benchmark
+    public long copyingGetterSum() {
+        long sum = 0;
+        for (Long userId : new HashSet<>(concurrentLikes)) {
+            sum += userId;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long snapshotSum() {
+        SortedLongSet likes = film.getLikes();
+        long sum = 0;
+        for (int i = 0; i < likes.size(); i++) {
+            sum += likes.get(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public boolean copyingGetterContains() {
+        return new HashSet<>(concurrentLikes).contains(probe);
+    }
+
+    @Benchmark
+    public boolean snapshotContains() {
+        return film.getLikes().contains(probe);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Стоимость одиночного лайка и его снятия у фильма с большим числом лайков: копирование всего
+ * SortedLongSet против буфера изменений в {@link Film#addLike}. Каждая операция добавляет новый лайк
+ * и снимает лайк, поставленный 512 операций назад, поэтому размер множества почти не меняется.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class LikesWriteBenchmark {
+    private static final int IN_FLIGHT = 512;
+
+    @Param({"10000", "1000000"})
+    private int likesCount;
+
+    private SortedLongSet copiedLikes;
+    private Film film;
+    private long nextUserId;
+
+    @Setup
+    public void setUp() {
+        SortedLongSet likes = SortedLongSet.ofSorted(LongStream.rangeClosed(1, likesCount).toArray());
+        copiedLikes = likes;
+        film = new Film();
+        film.setLikes(likes);
+        nextUserId = likesCount + 1L;
+    }
+
+    @Benchmark
+    public SortedLongSet copyOnWrite() {
+        long userId = nextUserId++;
+        copiedLikes = copiedLikes.with(userId).without(userId - IN_FLIGHT);
+        return copiedLikes;
+    }
+
+    @Benchmark
+    public boolean buffered() {
+        long userId = nextUserId++;
+        return film.addLike(userId) & film.removeLike(userId - IN_FLIGHT);
+    }
+}
@@ -0,0 +1,232 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * Нагрузочный прогон /films/popular и /users/{id}/friends на потоках платформы и на виртуальных потоках.
+ * Для каждого режима поднимает приложение на случайном порту, заполняет хранилища через сервисы
+ * и в течение заданного времени держит постоянное число клиентов, затем печатает пропускную способность и перцентили.
+ * <p>
+ * Параметры передаются как key=value: mode (platform, virtual, both), clients, seconds, warmup, users,
+ * films, friends, likes, profile (например, jdbc; варианты через запятую прогоняются по очереди,
+ * пустое значение — профиль по умолчанию, несколько профилей одного варианта — через «+»), logging (off — логи приложения отключены, on — действует
+ * конфигурация логирования профиля, а вывод приложения пишется в target/load-test.log).
+ */
+public class LoadTest {
+    private final Map<String, String> options;
+    private final PrintStream report = System.out;
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        new LoadTest(options).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        String mode = option("mode", "both");
+        boolean logging = option("logging", "off").equals("on");
+        if (logging) {
+            System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream("target/load-test.log")),
+                    false, StandardCharsets.UTF_8));
+        }
+        List<Result> results = new ArrayList<>();
+        for (String profile : option("profile", "").split(",", -1)) {
+            if (!mode.equals("virtual")) {
+                results.addAll(runMode(false, profile, logging));
+            }
+            if (!mode.equals("platform")) {
+                results.addAll(runMode(true, profile, logging));
+            }
+        }
+        System.out.flush();
+        report.printf("%n%-9s %-9s %-22s %10s %12s %9s %9s %9s%n",
+                "profile", "mode", "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "errors");
+        for (Result result : results) {
+            report.printf("%-9s %-9s %-22s %10d %12.1f %9.2f %9.2f %9d%n", result.profile(), result.mode(),
+                    result.endpoint(), result.requests(), result.throughput(), result.p50Millis(),
+                    result.p99Millis(), result.errors());
+        }
+    }
+
+    private List<Result> runMode(boolean virtualThreads, String profile, boolean logging) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties("server.port=0", "spring.threads.virtual.enabled=" + virtualThreads);
+        if (!logging) {
+            builder.properties("logging.level.org.zalando.logbook=OFF",
+                    "logging.level.ru.yandex.practicum.filmorate=WARN");
+        }
+        if (!profile.isEmpty()) {
+            builder.profiles(profile.split("\\+"));
+        }
+        try (ConfigurableApplicationContext context = builder.run()) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            int users = seed(context.getBean(UserService.class), context.getBean(FilmService.class));
+            String mode = virtualThreads ? "virtual" : "platform";
+            String profileName = profile.isEmpty() ? "default" : profile;
+            String base = "http://localhost:" + port;
+            return List.of(
+                    measure(profileName, mode, "/films/popular", id -> URI.create(base + "/films/popular?count=10")),
+                    measure(profileName, mode, "/users/{id}/friends", id -> URI.create(base + "/users/"
+                            + (id % users + 1) + "/friends")));
+        }
+    }
+
+    private int seed(UserService userService, FilmService filmService) {
+        int users = intOption("users", 1000);
+        int films = intOption("films", 1000);
+        int friends = intOption("friends", 20);
+        int likes = intOption("likes", 20);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setEmail("load" + i + "@ya.ru");
+            user.setLogin("load" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userService.addUser(user);
+        }
+        for (long userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < friends / 2; i++) {
+                long friendId = random.nextLong(1, users + 1);
+                if (friendId != userId && !userService.getUserById(userId).hasFriend(friendId)) {
+                    userService.addFriend(userId, friendId);
+                }
+            }
+        }
+        for (int i = 0; i < films; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(90);
+            long filmId = filmService.addFilm(film).getId();
+            for (int j = 0; j < random.nextInt(likes + 1); j++) {
+                long userId = random.nextLong(1, users + 1);
+                if (!filmService.getFilmById(filmId).hasLike(userId)) {
+                    filmService.addLike(filmId, userId);
+                }
+            }
+        }
+        return users;
+    }
+
+    private Result measure(String profile, String mode, String endpoint, LongFunction<URI> target)
+            throws Exception {
+        int clients = intOption("clients", 200);
+        runClients(clients, Duration.ofSeconds(intOption("warmup", 3)), target);
+        Duration duration = Duration.ofSeconds(intOption("seconds", 10));
+        List<ClientStats> stats = runClients(clients, duration, target);
+        long[] latencies = stats.stream().flatMapToLong(s -> Arrays.stream(s.latencies(), 0, s.count())).sorted()
+                .toArray();
+        long errors = stats.stream().mapToLong(ClientStats::errors).sum();
+        return new Result(profile, mode, endpoint, latencies.length, latencies.length / (double) duration.toSeconds(),
+                percentile(latencies, 0.50), percentile(latencies, 0.99), errors);
+    }
+
+    private List<ClientStats> runClients(int clients, Duration duration, LongFunction<URI> target) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<ClientStats>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                long seed = i;
+                futures.add(executor.submit(() -> runClient(seed, deadline, target)));
+            }
+            List<ClientStats> stats = new ArrayList<>();
+            for (Future<ClientStats> future : futures) {
+                stats.add(future.get());
+            }
+            return stats;
+        }
+    }
+
+    private ClientStats runClient(long seed, long deadline, LongFunction<URI> target) throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] latencies = new long[1024];
+        int count = 0;
+        long errors = 0;
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = HttpRequest.newBuilder(target.apply(random.nextLong(0, Long.MAX_VALUE)))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            long startedAt = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() != 200) {
+                    errors++;
+                    continue;
+                }
+            } catch (IOException e) {
+                errors++;
+                continue;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - startedAt;
+        }
+        return new ClientStats(latencies, count, errors);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(option(name, String.valueOf(defaultValue)));
+    }
+
+    private record ClientStats(long[] latencies, int count, long errors) {
+    }
+
+    private record Result(String profile, String mode, String endpoint, long requests, double throughput, double p50Millis,
+                          double p99Millis, long errors) {
+    }
+}
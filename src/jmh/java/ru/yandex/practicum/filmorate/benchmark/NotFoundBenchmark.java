@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ServiceFixtures;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Стоимость ответа «не найдено»: исключение с заполненным стеком (как было) против исключения без стека.
+ * Глубина стека имитирует цепочку Tomcat, фильтров и Spring MVC, в которой в реальном запросе
+ * бросается исключение, — от неё линейно зависит цена заполнения стека.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotFoundBenchmark {
+    @Param({"16", "128"})
+    private int stackDepth;
+
+    private FilmService filmService;
+    private long missingId;
+
+    @Setup
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        filmService = ServiceFixtures.filmService(filmStorage,
+                ServiceFixtures.userService(new InMemoryUserStorage()));
+        for (int i = 0; i < 1000; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(90);
+            filmService.addFilm(film);
+        }
+        missingId = 1_000_000;
+    }
+
+    @Benchmark
+    public String filledStackException() {
+        return atDepth(stackDepth, () -> {
+            try {
+                throw new RuntimeException("Фильм с ID " + missingId + " не найден");
+            } catch (RuntimeException e) {
+                return e.getMessage();
+            }
+        });
+    }
+
+    @Benchmark
+    public String stacklessException() {
+        return atDepth(stackDepth, () -> {
+            try {
+                throw new NotFoundException("Фильм с ID " + missingId + " не найден");
+            } catch (NotFoundException e) {
+                return e.getMessage();
+            }
+        });
+    }
+
+    @Benchmark
+    public String serviceMiss() {
+        return atDepth(stackDepth, () -> {
+            try {
+                return filmService.getFilmById(missingId).getName();
+            } catch (NotFoundException e) {
+                return e.getMessage();
+            }
+        });
+    }
+
+    private static String atDepth(int depth, Supplier<String> action) {
+        return depth == 0 ? action.get() : atDepth(depth - 1, action);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Добавление и чтение по ID в хранилищах в памяти. Чтение идёт по случайным ID всего хранилища,
+ * поэтому на больших размерах в результат входят промахи кэша процессора.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int entities;
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private long[] ids;
+    private int cursor;
+    private long created;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.quietLogs();
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        BenchmarkData.addFilms(filmStorage, entities);
+        BenchmarkData.addUsers(userStorage, entities);
+        ids = BenchmarkData.sampleIds(entities, new SplittableRandom(42));
+    }
+
+    @Benchmark
+    public Film filmGetById() {
+        return filmStorage.getById(nextId());
+    }
+
+    @Benchmark
+    public User userGetById() {
+        return userStorage.getById(nextId());
+    }
+
+    @Benchmark
+    public Film filmAdd() {
+        return filmStorage.add(BenchmarkData.film("Новый фильм"));
+    }
+
+    @Benchmark
+    public User userAdd() {
+        return userStorage.add(BenchmarkData.user("new" + created++));
+    }
+
+    private long nextId() {
+        return ids[cursor++ & (BenchmarkData.SAMPLE_SIZE - 1)];
+    }
+}
@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ServiceFixtures;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Друзья, общие друзья и проверка email при добавлении пользователя. Списки друзей заданы выборке
+ * пользователей, ID друзей разбросаны по всему хранилищу. {@link #addUser()} добавляет новых пользователей
+ * на каждом вызове, поэтому к концу прогона хранилище больше параметра entities.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class UserServiceBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int entities;
+
+    @Param({"100"})
+    private int friendsPerUser;
+
+    private UserService userService;
+    private long[] sample;
+    private int cursor;
+    private long created;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.quietLogs();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        BenchmarkData.addUsers(userStorage, entities);
+        sample = BenchmarkData.befriendSample(userStorage, entities, friendsPerUser, new SplittableRandom(42));
+        userService = ServiceFixtures.userService(userStorage);
+    }
+
+    @Benchmark
+    public List<User> getFriends() {
+        return userService.getFriends(nextUserId());
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        return userService.getCommonFriends(nextUserId(), nextUserId());
+    }
+
+    @Benchmark
+    public User addUser() {
+        return userService.addUser(BenchmarkData.user("new" + created++));
+    }
+
+    @Benchmark
+    public String addUserWithTakenEmail() {
+        try {
+            return userService.addUser(BenchmarkData.user("user" + nextUserId())).getEmail();
+        } catch (ValidationException e) {
+            return e.getMessage();
+        }
+    }
+
+    private long nextUserId() {
+        return sample[cursor++ & (BenchmarkData.SAMPLE_SIZE - 1)];
+    }
+}
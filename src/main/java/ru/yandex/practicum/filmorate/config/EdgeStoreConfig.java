@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.storage.EdgeStore;
+import ru.yandex.practicum.filmorate.storage.OffHeapEdgeStore;
+
+import java.util.Map;
+
+/**
+ * Хранилища списков связей для хранилищ в памяти: лайки фильмов, обратный индекс лайков пользователя и дружба.
+ * Пределы segment-size и max-size действуют на каждое хранилище отдельно; память вне кучи дополнительно
+ * ограничена флагом JVM -XX:MaxDirectMemorySize.
+ */
+@Configuration
+@Profile("!jdbc")
+public class EdgeStoreConfig {
+    @Value("${filmorate.edges.off-heap:false}")
+    private boolean offHeap;
+
+    @Value("${filmorate.edges.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${filmorate.edges.max-size:1GB}")
+    private DataSize maxSize;
+
+    @Value("${filmorate.edges.initial-capacity:4}")
+    private int initialCapacity;
+
+    @Bean
+    public EdgeStore likeEdgeStore() {
+        return createStore();
+    }
+
+    @Bean
+    public EdgeStore likedFilmEdgeStore() {
+        return createStore();
+    }
+
+    @Bean
+    public EdgeStore friendEdgeStore() {
+        return createStore();
+    }
+
+    @Bean
+    public MeterBinder edgeStoreMetrics(Map<String, EdgeStore> edgeStores) {
+        return registry -> edgeStores.forEach((name, store) -> {
+            if (store instanceof OffHeapEdgeStore offHeapStore) {
+                Gauge.builder("filmorate.edges.offheap.bytes", offHeapStore, OffHeapEdgeStore::allocatedBytes)
+                        .tag("store", name)
+                        .tag("state", "allocated")
+                        .register(registry);
+                Gauge.builder("filmorate.edges.offheap.bytes", offHeapStore, OffHeapEdgeStore::usedBytes)
+                        .tag("store", name)
+                        .tag("state", "used")
+                        .register(registry);
+            }
+        });
+    }
+
+    private EdgeStore createStore() {
+        if (!offHeap) {
+            return EdgeStore.HEAP;
+        }
+        return new OffHeapEdgeStore(segmentSize.toBytes(), maxSize.toBytes(), initialCapacity);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.service.FilmRecommender;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.Duration;
+
+@Configuration
+public class FilmRecommenderConfig {
+    @Value("${filmorate.recommendations.refresh-interval:1m}")
+    private Duration refreshInterval;
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public FilmRecommender filmRecommender(FilmStorage filmStorage) {
+        return new FilmRecommender(filmStorage, refreshInterval);
+    }
+}
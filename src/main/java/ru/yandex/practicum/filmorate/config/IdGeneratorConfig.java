@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import ru.yandex.practicum.filmorate.storage.id.IdGenerator;
+import ru.yandex.practicum.filmorate.storage.id.PartitionedIdBlockSource;
+import ru.yandex.practicum.filmorate.storage.id.RangeIdGenerator;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdGenerator;
+
+@Configuration
+@Profile("!jdbc")
+public class IdGeneratorConfig {
+    @Value("${filmorate.id.strategy:sequence}")
+    private String strategy;
+
+    @Value("${filmorate.id.node:0}")
+    private int node;
+
+    @Value("${filmorate.id.nodes:1}")
+    private int nodes;
+
+    @Value("${filmorate.id.block-size:1000}")
+    private int blockSize;
+
+    @Bean
+    public IdGenerator filmIdGenerator() {
+        return createGenerator();
+    }
+
+    @Bean
+    public IdGenerator userIdGenerator() {
+        return createGenerator();
+    }
+
+    private IdGenerator createGenerator() {
+        return switch (strategy) {
+            case "sequence" -> new SequenceIdGenerator();
+            case "range" -> new RangeIdGenerator(new PartitionedIdBlockSource(node, nodes), blockSize);
+            default -> throw new IllegalStateException("Неизвестная стратегия генерации ID: " + strategy);
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.service.LikeIngestion;
+import ru.yandex.practicum.filmorate.service.ResponseCache;
+import ru.yandex.practicum.filmorate.service.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+@Configuration
+@ConditionalOnProperty(prefix = "filmorate.likes.async", name = "enabled", havingValue = "true")
+public class LikeIngestionConfig {
+    @Value("${filmorate.likes.async.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${filmorate.likes.async.batch-size:1024}")
+    private int batchSize;
+
+    @Bean
+    public LikeIngestion likeIngestion(FilmStorage filmStorage, ResponseCache responseCache,
+                                       TrendingFilms trendingFilms) {
+        return new LikeIngestion(filmStorage, responseCache, trendingFilms, queueCapacity, batchSize);
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.service.FriendRecommender;
+import ru.yandex.practicum.filmorate.service.LikeIngestion;
+import ru.yandex.practicum.filmorate.service.ResponseCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+/**
+ * Датчики размеров данных и внутренних структур. Значения читаются при каждом опросе метрик,
+ * поэтому хранилища в памяти отдают их из счётчиков, а не обходом данных.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder storageMetrics(FilmStorage filmStorage, UserStorage userStorage) {
+        return registry -> {
+            Gauge.builder("filmorate.entities", filmStorage, FilmStorage::count)
+                    .tag("type", "film")
+                    .register(registry);
+            Gauge.builder("filmorate.entities", userStorage, UserStorage::count)
+                    .tag("type", "user")
+                    .register(registry);
+            Gauge.builder("filmorate.edges", filmStorage, FilmStorage::likesCount)
+                    .tag("type", "like")
+                    .register(registry);
+            Gauge.builder("filmorate.edges", userStorage, UserStorage::friendshipsCount)
+                    .tag("type", "friendship")
+                    .register(registry);
+            if (filmStorage instanceof InMemoryFilmStorage inMemoryFilmStorage) {
+                Gauge.builder("filmorate.index.size", inMemoryFilmStorage, InMemoryFilmStorage::likedFilmsIndexSize)
+                        .tag("index", "liked_films")
+                        .register(registry);
+            }
+            if (userStorage instanceof InMemoryUserStorage inMemoryUserStorage) {
+                Gauge.builder("filmorate.index.size", inMemoryUserStorage, InMemoryUserStorage::emailIndexSize)
+                        .tag("index", "email")
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder serviceMetrics(ResponseCache responseCache, FriendRecommender friendRecommender,
+                                      ObjectProvider<LikeIngestion> likeIngestion) {
+        return registry -> {
+            Gauge.builder("filmorate.index.size", responseCache, ResponseCache::estimatedSize)
+                    .tag("index", "response_cache")
+                    .register(registry);
+            FunctionCounter.builder("filmorate.response.cache", responseCache, cache -> cache.stats().hitCount())
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("filmorate.response.cache", responseCache, cache -> cache.stats().missCount())
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("filmorate.index.size", friendRecommender, FriendRecommender::cacheSize)
+                    .tag("index", "friend_recommendations")
+                    .register(registry);
+            likeIngestion.ifAvailable(ingestion -> {
+                Gauge.builder("filmorate.likes.queue.depth", ingestion, LikeIngestion::queueDepth)
+                        .register(registry);
+                Gauge.builder("filmorate.likes.pending", ingestion, LikeIngestion::pendingCount)
+                        .register(registry);
+                FunctionCounter.builder("filmorate.likes.failed", ingestion, LikeIngestion::retriedLikes)
+                        .tag("result", "retried")
+                        .register(registry);
+                FunctionCounter.builder("filmorate.likes.failed", ingestion, LikeIngestion::droppedLikes)
+                        .tag("result", "dropped")
+                        .register(registry);
+            });
+        };
+    }
+}
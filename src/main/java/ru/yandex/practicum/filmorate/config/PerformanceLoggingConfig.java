@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.core.Conditions;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+@Configuration
+@Profile("perf")
+public class PerformanceLoggingConfig {
+    @Value("${filmorate.logging.logbook-sample-rate:0.01}")
+    private double logbookSampleRate;
+
+    /**
+     * Заменяет условие Logbook: обмен с телами логируется только для случайной доли запросов,
+     * остальные запросы не буферизуются и не сериализуются. Массовый импорт не логируется никогда,
+     * как и в основной конфигурации.
+     */
+    @Bean
+    public Predicate<HttpRequest> requestCondition() {
+        Predicate<HttpRequest> sampled = request -> ThreadLocalRandom.current().nextDouble() < logbookSampleRate;
+        return Conditions.<HttpRequest>exclude(Conditions.requestTo("/films/bulk"), Conditions.requestTo("/users/bulk"))
+                .and(sampled);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.persistence.MutationLog;
+import ru.yandex.practicum.filmorate.storage.persistence.PersistenceManager;
+import ru.yandex.practicum.filmorate.storage.persistence.WriteAheadLog;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+
+@Configuration
+@Profile("!jdbc")
+@EnableConfigurationProperties(PersistenceProperties.class)
+public class PersistenceConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "filmorate.persistence", name = "enabled", havingValue = "true")
+    public WriteAheadLog writeAheadLog(PersistenceProperties properties) throws IOException {
+        return new WriteAheadLog(properties.getDirectory(), properties.getGroupCommitWindow(), properties.isFsync());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "filmorate.persistence", name = "enabled", havingValue = "true")
+    public PersistenceManager persistenceManager(WriteAheadLog writeAheadLog, InMemoryFilmStorage filmStorage,
+                                                 InMemoryUserStorage userStorage, PersistenceProperties properties) {
+        return new PersistenceManager(writeAheadLog, filmStorage, userStorage, properties.getDirectory(),
+                properties.getSnapshotInterval());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "filmorate.persistence", name = "enabled", havingValue = "false",
+            matchIfMissing = true)
+    public MutationLog mutationLog() {
+        return MutationLog.NOOP;
+    }
+}
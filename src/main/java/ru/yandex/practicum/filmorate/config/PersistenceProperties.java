@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.persistence")
+public class PersistenceProperties {
+    private boolean enabled = false;
+    private Path directory = Path.of("data");
+    private Duration groupCommitWindow = Duration.ofMillis(5);
+    private boolean fsync = true;
+    private Duration snapshotInterval = Duration.ofMinutes(10);
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.service.ResponseCache;
+
+@Configuration
+public class ResponseCacheConfig {
+    @Value("${filmorate.response-cache.max-size:64MB}")
+    private DataSize maxSize;
+
+    @Bean
+    public ResponseCache responseCache() {
+        return new ResponseCache(maxSize.toBytes());
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.service.TrendingFilms;
+
+import java.time.Clock;
+
+@Configuration
+public class TrendingFilmsConfig {
+    @Value("${filmorate.trending.max-films:" + TrendingFilms.DEFAULT_MAX_FILMS + "}")
+    private int maxFilms;
+
+    @Bean
+    public TrendingFilms trendingFilms() {
+        return new TrendingFilms(Clock.systemUTC(), maxFilms);
+    }
+
+    @Bean
+    public MeterBinder trendingFilmsMetrics(TrendingFilms trendingFilms) {
+        return registry -> {
+            for (TrendingFilms.Window window : TrendingFilms.Window.values()) {
+                Gauge.builder("filmorate.trending.films", trendingFilms, trending -> trending.trackedFilms(window))
+                        .tag("window", window.getName())
+                        .register(registry);
+                FunctionCounter.builder("filmorate.trending.evicted.films", trendingFilms,
+                                trending -> trending.evictedFilms(window))
+                        .tag("window", window.getName())
+                        .register(registry);
+            }
+        };
+    }
+}
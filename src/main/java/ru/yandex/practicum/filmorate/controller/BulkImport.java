@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.validation.CreateGroup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Потоковый импорт NDJSON или JSON-массива: записи читаются по одной, проверяются группой {@link CreateGroup}
+ * и сохраняются пакетами, поэтому память не зависит от размера входных данных.
+ * Ошибка в записи не прерывает импорт; нарушение синтаксиса JSON завершает его на этой записи.
+ */
+final class BulkImport {
+    static final int BATCH_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private BulkImport() {
+    }
+
+    @FunctionalInterface
+    interface BatchWriter<T> {
+        /**
+         * Сохраняет пакет и возвращает причины отказа по номеру записи в пакете.
+         */
+        Map<Integer, String> write(List<T> batch);
+    }
+
+    static <T> BulkImportReport read(ObjectMapper objectMapper, Validator validator, InputStream body, Class<T> type,
+                                     BatchWriter<T> writer) throws IOException {
+        return read(objectMapper, validator, body, type, record -> {
+        }, writer);
+    }
+
+    /**
+     * @param check дополнительная проверка записи сверх аннотаций; отклоняет запись через {@link ValidationException}
+     */
+    static <T> BulkImportReport read(ObjectMapper objectMapper, Validator validator, InputStream body, Class<T> type,
+                                     Consumer<T> check, BatchWriter<T> writer) throws IOException {
+        Progress<T> progress = new Progress<>(objectMapper, validator, type, check, writer);
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            long index = 0;
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_ARRAY) {
+                    token = parser.nextToken();
+                }
+                while (token != null && token != JsonToken.END_ARRAY) {
+                    JsonNode node = parser.readValueAsTree();
+                    progress.accept(index++, node);
+                    token = parser.nextToken();
+                }
+            } catch (JsonProcessingException e) {
+                progress.reject(index, "Некорректный JSON: " + e.getOriginalMessage());
+            }
+            progress.flush();
+        }
+        return progress.report();
+    }
+
+    private static final class Progress<T> {
+        private final ObjectMapper objectMapper;
+        private final Validator validator;
+        private final Class<T> type;
+        private final Consumer<T> check;
+        private final BatchWriter<T> writer;
+        private final List<T> batch = new ArrayList<>(BATCH_SIZE);
+        private final long[] batchIndexes = new long[BATCH_SIZE];
+        private final List<BulkImportReport.RecordError> errors = new ArrayList<>();
+        private long received;
+        private long imported;
+        private long failed;
+
+        private Progress(ObjectMapper objectMapper, Validator validator, Class<T> type, Consumer<T> check,
+                         BatchWriter<T> writer) {
+            this.objectMapper = objectMapper;
+            this.validator = validator;
+            this.type = type;
+            this.check = check;
+            this.writer = writer;
+        }
+
+        void accept(long index, JsonNode node) {
+            received++;
+            T record;
+            try {
+                record = objectMapper.treeToValue(node, type);
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                reject(index, "Некорректная запись: " + e.getMessage());
+                return;
+            }
+            Set<ConstraintViolation<T>> violations = validator.validate(record, CreateGroup.class);
+            if (!violations.isEmpty()) {
+                reject(index, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            try {
+                check.accept(record);
+            } catch (ValidationException e) {
+                reject(index, e.getMessage());
+                return;
+            }
+            batchIndexes[batch.size()] = index;
+            batch.add(record);
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            Map<Integer, String> rejected = writer.write(batch);
+            imported += batch.size() - rejected.size();
+            rejected.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> reject(batchIndexes[entry.getKey()], entry.getValue()));
+            batch.clear();
+        }
+
+        void reject(long index, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BulkImportReport.RecordError(index, message));
+            }
+        }
+
+        BulkImportReport report() {
+            return new BulkImportReport(received, imported, failed, errors);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import java.util.List;
+
+/**
+ * Итог массового импорта. Ошибки перечисляются только для первых записей, остальные учитываются в failed.
+ */
+public record BulkImportReport(long received, long imported, long failed, List<RecordError> errors) {
+
+    /**
+     * Ошибка записи; index — номер записи во входных данных, начиная с 0.
+     */
+    public record RecordError(long index, String message) {
+    }
+}
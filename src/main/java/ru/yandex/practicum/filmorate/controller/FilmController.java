@@ -1,6 +1,10 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,15 +15,19 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.validation.CreateGroup;
 import ru.yandex.practicum.filmorate.validation.UpdateGroup;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/films")
@@ -27,63 +35,101 @@ import java.util.List;
 @Slf4j
 public class FilmController {
     private final FilmService filmService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
     private static final LocalDate CINEMA_BIRTHDAY = LocalDate.of(
             1895, 12, 28);
 
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, ObjectMapper objectMapper, Validator validator) {
         this.filmService = filmService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
     }
 
     @GetMapping
     public Collection<Film> findAll() {
-        log.info("GET /films");
+        log.debug("GET /films");
         return filmService.findAllFilms();
     }
 
+    @GetMapping(params = "limit")
+    public List<Film> findPage(@RequestParam(name = "after", required = false) Long afterId,
+                             @RequestParam(name = "limit") Integer limit) {
+        log.debug("GET /films?after={}&limit={}", afterId, limit);
+        return filmService.findFilmsPage(afterId, limit);
+    }
+
+    @GetMapping(produces = NdjsonStreams.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        log.debug("GET /films (NDJSON)");
+        return NdjsonStreams.stream(objectMapper, filmService::streamAllFilms);
+    }
+
     @GetMapping("/{id}")
     public Film findById(@PathVariable("id") Long id) {
-        log.info("GET /films/{}", id);
+        log.debug("GET /films/{}", id);
         return filmService.getFilmById(id);
     }
 
     @PostMapping
     public Film add(@Validated(CreateGroup.class) @RequestBody Film film) {
-        log.info("POST /films - добавление фильма: {}", film.getName());
+        log.debug("POST /films - добавление фильма: {}", film.getName());
         validateReleaseDate(film.getReleaseDate());
         Film savedFilm = filmService.addFilm(film);
-        log.info("POST /films - запрос обработан успешно");
+        log.debug("POST /films - запрос обработан успешно");
         return savedFilm;
     }
 
+    @PostMapping(value = "/bulk", consumes = {NdjsonStreams.NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public BulkImportReport addAll(InputStream body) throws IOException {
+        log.debug("POST /films/bulk - массовое добавление фильмов");
+        BulkImportReport report = BulkImport.read(objectMapper, validator, body, Film.class,
+                film -> validateReleaseDate(film.getReleaseDate()),
+                batch -> {
+                    filmService.addFilms(batch);
+                    return Map.of();
+                });
+        log.debug("POST /films/bulk - добавлено: {}, отклонено: {}", report.imported(), report.failed());
+        return report;
+    }
+
     @PutMapping
     public Film update(@Validated(UpdateGroup.class) @RequestBody Film film) {
-        log.info("PUT /films - обновление фильма ID: {}, название: {}",
+        log.debug("PUT /films - обновление фильма ID: {}, название: {}",
                 film.getId(), film.getName());
         validateReleaseDate(film.getReleaseDate());
         Film updatedFilm = filmService.updateFilm(film);
-        log.info("PUT /films - фильм успешно обновлен");
+        log.debug("PUT /films - фильм успешно обновлен");
         return updatedFilm;
     }
 
     @PutMapping("/{id}/like/{userId}")
     public Film addLike(@PathVariable("id") Long filmId, @PathVariable("userId") Long userId) {
-        log.info("PUT /films/{}/like/{}", filmId, userId);
+        log.debug("PUT /films/{}/like/{}", filmId, userId);
         return filmService.addLike(filmId, userId);
     }
 
     @DeleteMapping("/{id}/like/{userId}")
     public Film deleteLike(@PathVariable("id") Long filmId, @PathVariable("userId") Long userId) {
-        log.info("DELETE /films/{}/like/{}", filmId, userId);
+        log.debug("DELETE /films/{}/like/{}", filmId, userId);
         return filmService.removeLike(filmId, userId);
     }
 
     @GetMapping("/popular")
     public List<Film> getPopularFilms(@RequestParam(name = "count", required = false,
             defaultValue = "10") Integer count) {
-        log.info("GET /films/popular?count={}", count);
+        log.debug("GET /films/popular?count={}", count);
         return filmService.getPopularFilms(count);
     }
 
+    @GetMapping("/trending")
+    public List<Film> getTrendingFilms(@RequestParam(name = "window", defaultValue = "24h") String window,
+                                       @RequestParam(name = "count", required = false,
+                                               defaultValue = "10") Integer count) {
+        log.debug("GET /films/trending?window={}&count={}", window, count);
+        return filmService.getTrendingFilms(window, count);
+    }
+
     private void validateReleaseDate(LocalDate releaseDate) {
         if (releaseDate != null && releaseDate.isBefore(CINEMA_BIRTHDAY)) {
             throw new ValidationException("Дата релиза фильма не может быть раньше 28 декабря 1895 года");
@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.yandex.practicum.filmorate.service.ResponseCache;
+
+import java.io.IOException;
+
+/**
+ * Отдаёт GET /films/{id}, /users/{id} и /films/popular из кэша сериализованных ответов,
+ * минуя контроллер и Jackson. Промах проходит обычную цепочку, тело успешного ответа сохраняется.
+ * На совпадение If-None-Match с ETag отвечает 304 без тела.
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    private static final String FILMS_PREFIX = "/films/";
+    private static final String USERS_PREFIX = "/users/";
+    private static final String POPULAR_PATH = "/films/popular";
+    private static final int DEFAULT_POPULAR_COUNT = 10;
+
+    private final ResponseCache responseCache;
+
+    public ResponseCacheFilter(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !responseCache.isEnabled() || !HttpMethod.GET.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ResponseCache.Key key = keyFor(request);
+        if (key == null || !acceptsJson(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ResponseCache.CachedResponse cached = responseCache.get(key);
+        if (cached != null) {
+            write(cached, request, response);
+            return;
+        }
+        long fillStamp = responseCache.fillStamp(key);
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || !isJson(wrapper.getContentType())) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        cached = responseCache.put(key, fillStamp, wrapper.getContentAsByteArray());
+        wrapper.resetBuffer();
+        write(cached, request, wrapper);
+        wrapper.copyBodyToResponse();
+    }
+
+    private ResponseCache.Key keyFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals(POPULAR_PATH)) {
+            String count = request.getParameter("count");
+            if (count == null) {
+                return responseCache.popularFilmsKey(DEFAULT_POPULAR_COUNT);
+            }
+            Long parsed = parseId(count);
+            return parsed == null || parsed > Integer.MAX_VALUE ? null : responseCache.popularFilmsKey(parsed.intValue());
+        }
+        if (path.startsWith(FILMS_PREFIX)) {
+            Long id = parseId(path.substring(FILMS_PREFIX.length()));
+            return id == null ? null : responseCache.filmKey(id);
+        }
+        if (path.startsWith(USERS_PREFIX)) {
+            Long id = parseId(path.substring(USERS_PREFIX.length()));
+            return id == null ? null : responseCache.userKey(id);
+        }
+        return null;
+    }
+
+    private static Long parseId(String value) {
+        if (value.isEmpty() || value.length() > 18) {
+            return null;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return null;
+            }
+        }
+        return Long.parseLong(value);
+    }
+
+    private static boolean acceptsJson(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return true;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(mediaType -> mediaType.isCompatibleWith(MediaType.APPLICATION_JSON));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private static boolean isJson(String contentType) {
+        return contentType != null && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+    }
+
+    private static void write(ResponseCache.CachedResponse cached, HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, cached.etag());
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), cached.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(cached.body().length);
+        response.getOutputStream().write(cached.body());
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
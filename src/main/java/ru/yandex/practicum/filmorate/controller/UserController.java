@@ -1,6 +1,10 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,14 +13,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.validation.CreateGroup;
 import ru.yandex.practicum.filmorate.validation.UpdateGroup;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/users")
@@ -24,60 +34,103 @@ import java.util.List;
 @Slf4j
 public class UserController {
     private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ObjectMapper objectMapper, Validator validator) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
     }
 
     @GetMapping
     public Collection<User> findAll() {
-        log.info("GET /users");
+        log.debug("GET /users");
         return userService.findAllUsers();
     }
 
+    @GetMapping(params = "limit")
+    public List<User> findPage(@RequestParam(name = "after", required = false) Long afterId,
+                             @RequestParam(name = "limit") Integer limit) {
+        log.debug("GET /users?after={}&limit={}", afterId, limit);
+        return userService.findUsersPage(afterId, limit);
+    }
+
+    @GetMapping(produces = NdjsonStreams.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        log.debug("GET /users (NDJSON)");
+        return NdjsonStreams.stream(objectMapper, userService::streamAllUsers);
+    }
+
     @GetMapping("/{id}")
     public User findById(@PathVariable("id") Long id) {
-        log.info("GET /users/{}", id);
+        log.debug("GET /users/{}", id);
         return userService.getUserById(id);
     }
 
     @PostMapping
     public User add(@Validated(CreateGroup.class) @RequestBody User user) {
-        log.info("POST /users - добавление пользователя: Имя: {}, Email: {}", user.getName(), user.getEmail());
+        log.debug("POST /users - добавление пользователя: Имя: {}, Email: {}", user.getName(), user.getEmail());
         User savedUser = userService.addUser(user);
-        log.info("POST /users - запрос обработан успешно");
+        log.debug("POST /users - запрос обработан успешно");
         return savedUser;
     }
 
+    @PostMapping(value = "/bulk", consumes = {NdjsonStreams.NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public BulkImportReport addAll(InputStream body) throws IOException {
+        log.debug("POST /users/bulk - массовое добавление пользователей");
+        BulkImportReport report = BulkImport.read(objectMapper, validator, body, User.class, this::addUsersBatch);
+        log.debug("POST /users/bulk - добавлено: {}, отклонено: {}", report.imported(), report.failed());
+        return report;
+    }
+
     @PutMapping
     public User update(@Validated(UpdateGroup.class) @RequestBody User user) {
-        log.info("PUT /users - обновление пользователя: Имя: {}, Email: {}", user.getName(), user.getEmail());
+        log.debug("PUT /users - обновление пользователя: Имя: {}, Email: {}", user.getName(), user.getEmail());
         User updatedUser = userService.updateUser(user);
-        log.info("PUT /users - пользователь успешно обновлен");
+        log.debug("PUT /users - пользователь успешно обновлен");
         return updatedUser;
     }
 
     @PutMapping("/{id}/friends/{friendId}")
     public User addFriend(@PathVariable("id") Long userId, @PathVariable("friendId") Long friendId) {
-        log.info("PUT /users/{}/friends/{}", userId, friendId);
+        log.debug("PUT /users/{}/friends/{}", userId, friendId);
         return userService.addFriend(userId, friendId);
     }
 
     @DeleteMapping("/{id}/friends/{friendId}")
     public User deleteFriend(@PathVariable("id") Long userId, @PathVariable("friendId") Long friendId) {
-        log.info("DELETE /users/{}/friends/{}", userId, friendId);
+        log.debug("DELETE /users/{}/friends/{}", userId, friendId);
         return userService.removeFriend(userId, friendId);
     }
 
     @GetMapping("/{id}/friends")
     public List<User> getFriends(@PathVariable("id") Long userId) {
-        log.info("GET /users/{}/friends", userId);
+        log.debug("GET /users/{}/friends", userId);
         return userService.getFriends(userId);
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> getCommonFriends(@PathVariable("id") Long userId1, @PathVariable("otherId") Long userId2) {
-        log.info("GET /users/{}/friends/common/{}", userId1, userId2);
+        log.debug("GET /users/{}/friends/common/{}", userId1, userId2);
         return userService.getCommonFriends(userId1, userId2);
     }
+
+    @GetMapping("/{id}/recommendations")
+    public List<User> getRecommendations(@PathVariable("id") Long userId,
+                                         @RequestParam(name = "limit", required = false) Integer limit) {
+        log.debug("GET /users/{}/recommendations?limit={}", userId, limit);
+        return userService.getRecommendations(userId, limit);
+    }
+
+    private Map<Integer, String> addUsersBatch(List<User> batch) {
+        List<User> users = userService.addUsers(batch);
+        Map<Integer, String> rejected = new HashMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            if (users.get(i).getId() == null) {
+                rejected.put(i, "Email " + users.get(i).getEmail() + " уже используется");
+            }
+        }
+        return rejected;
+    }
 }
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.util.List;
+
+@RestController
+@Slf4j
+public class UserFilmController {
+    private final FilmService filmService;
+
+    public UserFilmController(FilmService filmService) {
+        this.filmService = filmService;
+    }
+
+    @GetMapping("/users/{id}/likes")
+    public List<Film> getLikedFilms(@PathVariable("id") Long userId,
+                                    @RequestParam(name = "after", required = false) Long afterId,
+                                    @RequestParam(name = "limit", required = false) Integer limit) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users/{}/likes?after={}&limit={}", userId, afterId, limit);
+        }
+        return filmService.getLikedFilms(userId, afterId, limit);
+    }
+
+    @GetMapping("/users/{id}/film-recommendations")
+    public List<Film> getFilmRecommendations(@PathVariable("id") Long userId,
+                                             @RequestParam(name = "count", required = false) Integer count) {
+        log.debug("GET /users/{}/film-recommendations?count={}", userId, count);
+        return filmService.getFilmRecommendations(userId, count);
+    }
+}
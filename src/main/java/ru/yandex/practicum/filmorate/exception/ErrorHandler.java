@@ -1,5 +1,7 @@
 package ru.yandex.practicum.filmorate.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -10,10 +12,22 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @Slf4j
 @RestControllerAdvice
 public class ErrorHandler {
+    private final Counter validationErrors;
+    private final Counter notFoundErrors;
+    private final Counter tooManyRequestsErrors;
+    private final Counter internalErrors;
+
+    public ErrorHandler(MeterRegistry registry) {
+        this.validationErrors = errorCounter(registry, "validation");
+        this.notFoundErrors = errorCounter(registry, "not_found");
+        this.tooManyRequestsErrors = errorCounter(registry, "too_many_requests");
+        this.internalErrors = errorCounter(registry, "internal");
+    }
 
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(ValidationException.class)
     public ErrorResponse handleValidationException(final ValidationException e) {
+        validationErrors.increment();
         log.warn("Ошибка валидации: {}", e.getMessage());
         return new ErrorResponse("Ошибка валидации", e.getMessage());
     }
@@ -21,13 +35,24 @@ public class ErrorHandler {
     @ResponseStatus(HttpStatus.NOT_FOUND)
     @ExceptionHandler(NotFoundException.class)
     public ErrorResponse handleNotFoundException(final NotFoundException e) {
-        log.warn("Объект не найден: {}", e.getMessage());
+        notFoundErrors.increment();
+        // Промахи считаются метрикой; построчный лог при переборе ID сам становится нагрузкой
+        log.debug("Объект не найден: {}", e.getMessage());
         return new ErrorResponse("Объект не найден", e.getMessage());
     }
 
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ErrorResponse handleTooManyRequests(final TooManyRequestsException e) {
+        tooManyRequestsErrors.increment();
+        log.warn("Запрос отклонён: {}", e.getMessage());
+        return new ErrorResponse("Слишком много запросов", e.getMessage());
+    }
+
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(Exception.class)
     public ErrorResponse handleInternalError(final Exception e) {
+        internalErrors.increment();
         log.error("Возникло исключение: {}", e.getMessage());
         return new ErrorResponse("Возникло исключение", e.getMessage());
     }
@@ -35,8 +60,15 @@ public class ErrorHandler {
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ErrorResponse handleMethodArgumentNotValid(final MethodArgumentNotValidException e) {
+        validationErrors.increment();
         String errorMessage = e.getBindingResult().getFieldError().getDefaultMessage();
         log.warn("Ошибка валидации: {}", errorMessage);
         return new ErrorResponse("Ошибка валидации", errorMessage);
     }
+
+    private static Counter errorCounter(MeterRegistry registry, String type) {
+        return Counter.builder("filmorate.errors")
+                .tag("type", type)
+                .register(registry);
+    }
 }
@@ -1,7 +1,11 @@
 package ru.yandex.practicum.filmorate.exception;
 
+/**
+ * Доменная ошибка без стека: промахи по ID — штатная ситуация (в том числе перебор ID ботами),
+ * стек для них не нужен, а его заполнение занимает большую часть стоимости исключения.
+ */
 public class NotFoundException extends RuntimeException {
     public NotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -1,7 +1,10 @@
 package ru.yandex.practicum.filmorate.exception;
 
+/**
+ * Доменная ошибка без стека, как и {@link NotFoundException}: текста сообщения достаточно для ответа и лога.
+ */
 public class ValidationException extends RuntimeException {
     public ValidationException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
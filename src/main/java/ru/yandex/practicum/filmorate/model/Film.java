@@ -1,18 +1,22 @@
 package ru.yandex.practicum.filmorate.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Null;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import ru.yandex.practicum.filmorate.util.BufferedLongSet;
+import ru.yandex.practicum.filmorate.util.LongSet;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
 import ru.yandex.practicum.filmorate.validation.CreateGroup;
 import ru.yandex.practicum.filmorate.validation.UpdateGroup;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 @Data
 public class Film {
@@ -32,26 +36,55 @@ public class Film {
     @Positive(message = "Продолжительность фильма должна быть положительным числом", groups = {CreateGroup.class, UpdateGroup.class})
     private Integer duration;
 
+    // Изменения публикуют новый экземпляр множества и выполняются под блокировкой фильма в хранилище,
+    // читатели получают текущий снимок без копирования; связи вне кучи копируются при чтении.
+    // Одиночные лайки большого множества копят буфер (BufferedLongSet), снимок сливает его один раз
     @JsonIgnore
-    private final Set<Long> likes = new HashSet<>();
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile LongSet likes = SortedLongSet.EMPTY;
 
-    public Set<Long> getLikes() {
-        return new HashSet<>(this.likes);
+    // Хранилище в БД загружает только число лайков, без самих лайков; null — считать по множеству
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer likesCount;
+
+    /**
+     * Пусто, если хранилище загрузило только число лайков.
+     */
+    public SortedLongSet getLikes() {
+        return this.likes.snapshot();
+    }
+
+    /**
+     * Множество как есть, без копирования из хранилища связей вне кучи.
+     */
+    public LongSet likeSet() {
+        return this.likes;
     }
 
-    public void addLike(Long userId) {
-        this.likes.add(userId);
+    public boolean addLike(Long userId) {
+        LongSet updated = BufferedLongSet.with(this.likes, userId);
+        if (updated == this.likes) {
+            return false;
+        }
+        this.likes = updated;
+        return true;
     }
 
-    public void removeLike(Long userId) {
-        this.likes.remove(userId);
+    public boolean removeLike(Long userId) {
+        LongSet updated = BufferedLongSet.without(this.likes, userId);
+        if (updated == this.likes) {
+            return false;
+        }
+        this.likes = updated;
+        return true;
     }
 
     public boolean hasLike(Long userId) {
-        return this.likes.contains(userId);
+        return this.likes.contains(userId.longValue());
     }
 
     public int getLikesCount() {
-        return this.likes.size();
+        return this.likesCount != null ? this.likesCount : this.likes.size();
     }
 }
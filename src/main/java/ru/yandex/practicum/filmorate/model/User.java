@@ -8,12 +8,12 @@ import jakarta.validation.constraints.Null;
 import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Pattern;
 import lombok.Data;
+import ru.yandex.practicum.filmorate.util.LongSet;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
 import ru.yandex.practicum.filmorate.validation.CreateGroup;
 import ru.yandex.practicum.filmorate.validation.UpdateGroup;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 @Data
 public class User {
@@ -36,21 +36,38 @@ public class User {
     private LocalDate birthday;
 
     @JsonIgnore
-    private final Set<Long> friends = new HashSet<>();
+    private volatile LongSet friends = SortedLongSet.EMPTY;
 
-    public Set<Long> getFriends() {
-        return new HashSet<>(this.friends);
+    public SortedLongSet getFriends() {
+        return this.friends.snapshot();
     }
 
-    public void addFriend(Long friendId) {
-        this.friends.add(friendId);
+    /**
+     * Множество как есть, без копирования из хранилища связей вне кучи.
+     */
+    public LongSet friendSet() {
+        return this.friends;
     }
 
-    public void removeFriend(Long friendId) {
-        this.friends.remove(friendId);
+    public boolean addFriend(Long friendId) {
+        LongSet updated = this.friends.with(friendId);
+        if (updated == this.friends) {
+            return false;
+        }
+        this.friends = updated;
+        return true;
+    }
+
+    public boolean removeFriend(Long friendId) {
+        LongSet updated = this.friends.without(friendId);
+        if (updated == this.friends) {
+            return false;
+        }
+        this.friends = updated;
+        return true;
     }
 
     public boolean hasFriend(Long friendId) {
-        return this.friends.contains(friendId);
+        return this.friends.contains(friendId.longValue());
     }
 }
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Рекомендации фильмов по схожести вкусов. Фоновая задача периодически перестраивает {@link LikesModel}
+ * по всем лайкам и заранее подбирает соседей, поэтому запрос только суммирует лайки соседей.
+ * Новые лайки учитываются со следующей перестройки.
+ */
+@Slf4j
+public class FilmRecommender implements Closeable {
+    public static final int MAX_RECOMMENDATIONS = 100;
+    private static final int NEIGHBORS_PER_USER = 20;
+
+    private final FilmStorage filmStorage;
+    private final Duration refreshInterval;
+    private volatile LikesModel model = LikesModel.EMPTY;
+    private ScheduledExecutorService scheduler;
+
+    public FilmRecommender(FilmStorage filmStorage, Duration refreshInterval) {
+        this.filmStorage = filmStorage;
+        this.refreshInterval = refreshInterval;
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("film-recommender").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void refresh() {
+        long startedAt = System.nanoTime();
+        try (Stream<Film> films = filmStorage.stream()) {
+            model = LikesModel.build(films.iterator(), NEIGHBORS_PER_USER);
+        }
+        log.info("Модель рекомендаций фильмов перестроена за {} мс: пользователей {}, фильмов {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), model.userCount(), model.filmCount());
+    }
+
+    public long[] recommend(long userId, int count) {
+        return model.recommend(userId, count);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("Не удалось перестроить модель рекомендаций фильмов: {}", e.getMessage(), e);
+        }
+    }
+}
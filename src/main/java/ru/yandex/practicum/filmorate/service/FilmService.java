@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
@@ -7,26 +8,66 @@ import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Slf4j
+@Timed(value = "filmorate.service", histogram = true)
 @Service
 public class FilmService {
     private static final int DEFAULT_POPULAR_COUNT = 10;
+    private static final int DEFAULT_RECOMMENDATIONS = 10;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
     private final FilmStorage filmStorage;
     private final UserService userService;
+    private final LikeIngestion likeIngestion;
+    private final FilmRecommender filmRecommender;
+    private final ResponseCache responseCache;
+    private final TrendingFilms trendingFilms;
 
-    public FilmService(FilmStorage filmStorage, UserService userService) {
+    public FilmService(FilmStorage filmStorage, UserService userService, Optional<LikeIngestion> likeIngestion,
+                       FilmRecommender filmRecommender, ResponseCache responseCache, TrendingFilms trendingFilms) {
         this.filmStorage = filmStorage;
         this.userService = userService;
+        this.likeIngestion = likeIngestion.orElse(null);
+        this.filmRecommender = filmRecommender;
+        this.responseCache = responseCache;
+        this.trendingFilms = trendingFilms;
     }
 
     public Collection<Film> findAllFilms() {
         return filmStorage.findAll();
     }
 
+    public List<Film> findFilmsPage(Long afterId, Integer limit) {
+        long after = afterId == null ? 0 : afterId;
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        validatePage(after, pageSize);
+        return filmStorage.findPage(after, pageSize);
+    }
+
+    public List<Film> getLikedFilms(Long userId, Long afterId, Integer limit) {
+        long after = afterId == null ? 0 : afterId;
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        validatePage(after, pageSize);
+        userService.getUserById(userId);
+        List<Long> filmIds = filmStorage.findLikedFilmIds(userId, after, pageSize);
+        return filmStorage.getByIds(filmIds).found();
+    }
+
+    // Выгрузка читает фильмы страницами списка: лайки целиком ей не нужны, только их число
+    public Stream<Film> streamAllFilms() {
+        return Stream.iterate(filmStorage.findPage(0, MAX_PAGE_SIZE), page -> !page.isEmpty(),
+                        page -> page.size() < MAX_PAGE_SIZE
+                                ? List.of() : filmStorage.findPage(page.getLast().getId(), MAX_PAGE_SIZE))
+                .flatMap(List::stream);
+    }
+
     public Film getFilmById(Long id) {
         Film film = filmStorage.getById(id);
         if (film == null) {
@@ -36,67 +77,135 @@ public class FilmService {
     }
 
     public Film addFilm(Film film) {
-        log.info("addFilm - добавление фильма: {}", film.getName());
+        log.debug("addFilm - добавление фильма: {}", film.getName());
         Film savedFilm = filmStorage.add(film);
-        log.info("addFilm - фильм успешно добавлен. ID: {}, название: {}",
+        responseCache.invalidatePopularFilms();
+        log.debug("addFilm - фильм успешно добавлен. ID: {}, название: {}",
                 savedFilm.getId(), savedFilm.getName());
         return savedFilm;
     }
 
+    public List<Film> addFilms(List<Film> films) {
+        log.debug("addFilms - добавление пакета фильмов: {}", films.size());
+        List<Film> savedFilms = filmStorage.addAll(films);
+        responseCache.invalidatePopularFilms();
+        return savedFilms;
+    }
+
     public Film updateFilm(Film film) {
-        log.info("updateFilm - обновление фильма: {}", film);
-        Film existingFilm = getFilmById(film.getId());
-        existingFilm.setName(film.getName());
-        existingFilm.setDescription(film.getDescription());
-        existingFilm.setReleaseDate(film.getReleaseDate());
-        existingFilm.setDuration(film.getDuration());
-        Film updatedFilm = filmStorage.update(existingFilm);
-        log.info("updateFilm - фильм успешно обновлен. ID: {}, название: {}",
+        log.debug("updateFilm - обновление фильма: {}", film);
+        getFilmById(film.getId());
+        Film updatedFilm = filmStorage.update(film);
+        responseCache.invalidateFilm(updatedFilm.getId());
+        log.debug("updateFilm - фильм успешно обновлен. ID: {}, название: {}",
                 updatedFilm.getId(), updatedFilm.getName());
 
         return updatedFilm;
     }
 
     public Film addLike(Long filmId, Long userId) {
-        log.info("Добавление лайка к фильму {} от пользователя {}", filmId, userId);
+        log.debug("Добавление лайка к фильму {} от пользователя {}", filmId, userId);
         Film film = getFilmById(filmId);
         userService.getUserById(userId);
-        if (film.hasLike(userId)) {
+        if (likeIngestion != null) {
+            if (!likeIngestion.submit(film, userId, true)) {
+                log.warn("Пользователь {} уже ставил лайк фильму {}", userId, filmId);
+                throw new ValidationException(
+                        String.format("Пользователь %d уже поставил лайк фильму %d", userId, filmId)
+                );
+            }
+            log.debug("Лайк пользователя {} фильму {} поставлен в очередь", userId, filmId);
+            return film;
+        }
+        if (!filmStorage.addLike(filmId, userId)) {
             log.warn("Пользователь {} уже ставил лайк фильму {}", userId, filmId);
             throw new ValidationException(
                     String.format("Пользователь %d уже поставил лайк фильму %d", userId, filmId)
             );
         }
-        film.addLike(userId);
-        filmStorage.update(film);
-        log.info("Пользователь {} поставил лайк фильму {}", userId, filmId);
-        return film;
+        Film likedFilm = getFilmById(filmId);
+        responseCache.invalidateFilmLikes(filmId, likedFilm.getLikesCount());
+        trendingFilms.recordLike(filmId);
+        log.debug("Пользователь {} поставил лайк фильму {}", userId, filmId);
+        return likedFilm;
     }
 
     public Film removeLike(Long filmId, Long userId) {
-        log.info("Удаление лайка фильму {} от пользователя {}", filmId, userId);
+        log.debug("Удаление лайка фильму {} от пользователя {}", filmId, userId);
         Film film = getFilmById(filmId);
         userService.getUserById(userId);
-        if (!film.hasLike(userId)) {
+        if (likeIngestion != null) {
+            if (!likeIngestion.submit(film, userId, false)) {
+                log.warn("Пользователь {} не ставил лайк фильму {}", userId, filmId);
+                throw new ValidationException(
+                        String.format("Пользователь %d не ставил лайк фильму %d", userId, filmId)
+                );
+            }
+            log.debug("Удаление лайка пользователя {} фильму {} поставлено в очередь", userId, filmId);
+            return film;
+        }
+        if (!filmStorage.removeLike(filmId, userId)) {
             log.warn("Пользователь {} не ставил лайк фильму {}", userId, filmId);
             throw new ValidationException(
                     String.format("Пользователь %d не ставил лайк фильму %d", userId, filmId)
             );
         }
-        film.removeLike(userId);
-        filmStorage.update(film);
-        log.info("Пользователь {} удалил лайк фильму {}", userId, filmId);
-        return film;
+        Film unlikedFilm = getFilmById(filmId);
+        responseCache.invalidateFilmLikes(filmId, unlikedFilm.getLikesCount());
+        trendingFilms.recordUnlike(filmId);
+        log.debug("Пользователь {} удалил лайк фильму {}", userId, filmId);
+        return unlikedFilm;
     }
 
     public List<Film> getPopularFilms(Integer count) {
-        log.info("Получение {} популярных фильмов", count);
+        log.debug("Получение {} популярных фильмов", count);
         int filmsCount = (count == null || count <= 0) ? DEFAULT_POPULAR_COUNT : count;
-        List<Film> popularFilms = findAllFilms().stream()
-                .sorted(Comparator.comparingInt(Film::getLikesCount).reversed())
-                .limit(filmsCount)
-                .toList();
-        log.info("Популярных фильмов: {}", popularFilms.size());
+        long readMark = responseCache.popularReadMark();
+        List<Film> popularFilms = filmStorage.getPopular(filmsCount);
+        responseCache.trackPopularFilms(filmsCount, popularFilms, readMark);
+        if (log.isDebugEnabled()) {
+            log.debug("Популярных фильмов: {}", popularFilms.size());
+        }
         return popularFilms;
     }
+
+    public List<Film> getTrendingFilms(String window, Integer count) {
+        log.debug("Получение {} фильмов, набирающих лайки за {}", count, window);
+        TrendingFilms.Window trendingWindow = TrendingFilms.Window.of(window);
+        if (trendingWindow == null) {
+            throw new ValidationException(String.format("Некорректный window=%s (допустимо 1h, 24h, 7d)", window));
+        }
+        int filmsCount = count == null ? DEFAULT_POPULAR_COUNT : count;
+        if (filmsCount <= 0 || filmsCount > TrendingFilms.MAX_COUNT) {
+            throw new ValidationException(String.format("Некорректный count=%d (допустимо от 1 до %d)",
+                    filmsCount, TrendingFilms.MAX_COUNT));
+        }
+        long[] filmIds = trendingFilms.top(trendingWindow, filmsCount);
+        return filmStorage.getByIds(Arrays.stream(filmIds).boxed().toList()).found();
+    }
+
+    public List<Film> getFilmRecommendations(Long userId, Integer count) {
+        log.debug("Получение рекомендаций фильмов для пользователя {}", userId);
+        int filmsCount = count == null ? DEFAULT_RECOMMENDATIONS : count;
+        if (filmsCount <= 0 || filmsCount > FilmRecommender.MAX_RECOMMENDATIONS) {
+            throw new ValidationException(String.format("Некорректный count=%d (допустимо от 1 до %d)",
+                    filmsCount, FilmRecommender.MAX_RECOMMENDATIONS));
+        }
+        userService.getUserById(userId);
+        long[] filmIds = filmRecommender.recommend(userId, filmsCount);
+        // Модель перестраивается периодически, поэтому лайки, поставленные после перестройки, отсекаем здесь
+        List<Long> ids = Arrays.stream(filmIds).boxed().toList();
+        Set<Long> liked = filmStorage.findLikedFilmIds(userId, ids);
+        return filmStorage.getByIds(ids).found().stream()
+                .filter(film -> !liked.contains(film.getId()))
+                .toList();
+    }
+
+    private static void validatePage(long after, int pageSize) {
+        if (after < 0 || pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new ValidationException(String.format(
+                    "Некорректные параметры страницы: after=%d, limit=%d (допустимо от 1 до %d)",
+                    after, pageSize, MAX_PAGE_SIZE));
+        }
+    }
 }
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.LongIntCounter;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+import ru.yandex.practicum.filmorate.util.TopK;
+import ru.yandex.practicum.filmorate.util.VersionStamps;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Рекомендации «друзья друзей»: обход графа дружбы на глубину 2 по массивам ID,
+ * подсчёт общих друзей в примитивном счётчике и отбор лучших через ограниченную кучу.
+ * Результат кэшируется на пользователя (не больше maxCachedUsers записей) и сбрасывается
+ * при изменении дружбы у него или его друзей.
+ */
+@Component
+public class FriendRecommender {
+    public static final int MAX_RECOMMENDATIONS = 100;
+    public static final int DEFAULT_MAX_CACHED_USERS = 100_000;
+    private static final int VERSION_STRIPES = 4096;
+
+    private final UserStorage userStorage;
+    private final Cache<Long, long[]> cache;
+    private final VersionStamps versions = new VersionStamps(VERSION_STRIPES);
+
+    public FriendRecommender(UserStorage userStorage,
+                             @Value("${filmorate.recommendations.friends.cache-size:100000}") int maxCachedUsers) {
+        this.userStorage = userStorage;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxCachedUsers)
+                .build();
+    }
+
+    /**
+     * Возвращает ID рекомендуемых пользователей по убыванию числа общих друзей (при равенстве — по ID).
+     */
+    public long[] recommend(long userId, int limit) {
+        long[] recommended = cache.getIfPresent(userId);
+        if (recommended == null) {
+            // Расчёт идёт вне блокировок кэша и по пользователю, прочитанному после отметки версии:
+            // если дружба изменилась во время расчёта, результат не остаётся в кэше
+            long stamp = versions.get(userId);
+            recommended = compute(userStorage.getById(userId));
+            if (versions.get(userId) == stamp) {
+                cache.put(userId, recommended);
+                if (versions.get(userId) != stamp) {
+                    cache.asMap().remove(userId, recommended);
+                }
+            }
+        }
+        return recommended.length <= limit ? recommended : Arrays.copyOf(recommended, limit);
+    }
+
+    /**
+     * Сбрасывает кэш после изменения дружбы между userId и friendId: меняются рекомендации
+     * самих пользователей и всех, для кого один из них является другом.
+     */
+    public void invalidate(long userId, long friendId, SortedLongSet userFriends, SortedLongSet friendFriends) {
+        invalidate(userId);
+        invalidate(friendId);
+        userFriends.forEachLong(this::invalidate);
+        friendFriends.forEachLong(this::invalidate);
+    }
+
+    public long cacheSize() {
+        return cache.estimatedSize();
+    }
+
+    private void invalidate(long userId) {
+        versions.bump(userId);
+        cache.invalidate(userId);
+    }
+
+    private long[] compute(User user) {
+        SortedLongSet friends = user.getFriends();
+        List<User> friendUsers = userStorage.getByIds(friends).found();
+        LongIntCounter mutualFriends = new LongIntCounter(friendUsers.size() * 8);
+        for (User friend : friendUsers) {
+            SortedLongSet candidates = friend.getFriends();
+            for (int i = 0; i < candidates.size(); i++) {
+                long candidate = candidates.get(i);
+                if (candidate != user.getId() && !friends.contains(candidate)) {
+                    mutualFriends.increment(candidate);
+                }
+            }
+        }
+        TopK top = new TopK(MAX_RECOMMENDATIONS);
+        mutualFriends.forEach(top::offer);
+        return top.drainSorted();
+    }
+}
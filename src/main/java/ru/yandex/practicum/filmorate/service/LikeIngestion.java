@@ -0,0 +1,225 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.LikeChanges;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Асинхронный приём лайков. Запрос только проверяет дубликат и кладёт событие в ограниченную очередь,
+ * а отдельный поток забирает события пачками и применяет их к хранилищу по одному вызову на фильм.
+ * Тот же поток передаёт изменения в {@link TrendingFilms}, поэтому запрос на лайк их не касается.
+ * <p>
+ * Ещё не применённые события хранятся в pending: дубликат определяется по ожидающему состоянию,
+ * а если его нет — по хранилищу. Запись в pending удаляется только после применения к хранилищу.
+ * Если хранилище не приняло пакет фильма, его события возвращаются в очередь на новую попытку;
+ * отброшенные после нескольких неудач считаются в метрике и пишутся в лог ошибок.
+ * Очередь дочищается при остановке контекста: после остановки веб-сервера, но до уничтожения хранилищ и журнала.
+ */
+@Slf4j
+public class LikeIngestion implements SmartLifecycle {
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final FilmStorage filmStorage;
+    private final ResponseCache responseCache;
+    private final TrendingFilms trendingFilms;
+    private final BlockingQueue<LikeEvent> queue;
+    private final int batchSize;
+    private final Map<LikeKey, Boolean> pending = new ConcurrentHashMap<>();
+    private final AtomicLong retriedLikes = new AtomicLong();
+    private final AtomicLong droppedLikes = new AtomicLong();
+    private final Thread consumer;
+    private volatile boolean running = true;
+
+    public LikeIngestion(FilmStorage filmStorage, ResponseCache responseCache, TrendingFilms trendingFilms,
+                         int queueCapacity, int batchSize) {
+        this.filmStorage = filmStorage;
+        this.responseCache = responseCache;
+        this.trendingFilms = trendingFilms;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.consumer = Thread.ofPlatform().name("like-ingestion").daemon().unstarted(this::consumeLoop);
+    }
+
+    @Override
+    public void start() {
+        consumer.start();
+    }
+
+    /**
+     * Ставит изменение лайка в очередь. Возвращает false, если лайк уже в запрошенном состоянии
+     * (с учётом ещё не применённых событий), и бросает TooManyRequestsException, если очередь заполнена.
+     */
+    public boolean submit(Film film, long userId, boolean liked) {
+        LikeKey key = new LikeKey(film.getId(), userId);
+        boolean stored = filmStorage.hasLike(film.getId(), userId);
+        boolean[] accepted = new boolean[1];
+        boolean[] rejected = new boolean[1];
+        pending.compute(key, (ignored, pendingLiked) -> {
+            boolean current = pendingLiked != null ? pendingLiked : stored;
+            if (current == liked) {
+                return pendingLiked;
+            }
+            if (!queue.offer(new LikeEvent(key, liked, 0))) {
+                rejected[0] = true;
+                return pendingLiked;
+            }
+            accepted[0] = true;
+            return liked;
+        });
+        if (rejected[0]) {
+            throw new TooManyRequestsException("Очередь лайков заполнена, повторите запрос позже");
+        }
+        return accepted[0];
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    public long retriedLikes() {
+        return retriedLikes.get();
+    }
+
+    public long droppedLikes() {
+        return droppedLikes.get();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return consumer.isAlive();
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            drain(new ArrayList<>());
+        }
+    }
+
+    private void consumeLoop() {
+        List<LikeEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                LikeEvent first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Не удалось применить пачку лайков: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void drain(List<LikeEvent> batch) {
+        while (queue.drainTo(batch, batchSize) > 0) {
+            apply(batch);
+            batch.clear();
+        }
+    }
+
+    // События одного ключа чередуются, поэтому итог по ключу определяется последним событием пачки
+    private void apply(List<LikeEvent> batch) {
+        Map<Long, Map<Long, LikeEvent>> changesByFilm = new LinkedHashMap<>();
+        for (LikeEvent event : batch) {
+            changesByFilm.computeIfAbsent(event.key().filmId(), filmId -> new HashMap<>())
+                    .put(event.key().userId(), event);
+        }
+        for (Map.Entry<Long, Map<Long, LikeEvent>> film : changesByFilm.entrySet()) {
+            List<Long> likedBy = new ArrayList<>();
+            List<Long> unlikedBy = new ArrayList<>();
+            film.getValue().forEach((userId, event) -> (event.liked() ? likedBy : unlikedBy).add(userId));
+            LikeChanges applied;
+            try {
+                applied = filmStorage.applyLikeChanges(film.getKey(), likedBy, unlikedBy);
+            } catch (Exception e) {
+                log.error("Не удалось применить лайки фильма {}: {}", film.getKey(), e.getMessage(), e);
+                retry(film.getKey(), film.getValue().values());
+                continue;
+            }
+            responseCache.invalidateFilmLikes(film.getKey(), applied.likesCount());
+            trendingFilms.record(film.getKey(), applied.added());
+            trendingFilms.record(film.getKey(), -applied.removed());
+            film.getValue().values().forEach(event -> pending.remove(event.key(), event.liked()));
+        }
+    }
+
+    /**
+     * Возвращает события в конец очереди. Событие, которое уже перекрыто более новым по тому же ключу,
+     * не возвращается; после {@link #MAX_ATTEMPTS} неудач или при заполненной очереди оно отбрасывается.
+     */
+    private void retry(long filmId, Collection<LikeEvent> events) {
+        int dropped = 0;
+        for (LikeEvent event : events) {
+            boolean[] lost = new boolean[1];
+            pending.computeIfPresent(event.key(), (key, pendingLiked) -> {
+                if (pendingLiked != event.liked()) {
+                    return pendingLiked;
+                }
+                LikeEvent next = event.failed();
+                if (next.failures() < MAX_ATTEMPTS && queue.offer(next)) {
+                    retriedLikes.incrementAndGet();
+                    return pendingLiked;
+                }
+                lost[0] = true;
+                return null;
+            });
+            if (lost[0]) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            droppedLikes.addAndGet(dropped);
+            log.error("Отброшено изменений лайков фильма {}: {}", filmId, dropped);
+        }
+    }
+
+    private record LikeKey(long filmId, long userId) {
+    }
+
+    private record LikeEvent(LikeKey key, boolean liked, int failures) {
+
+        LikeEvent failed() {
+            return new LikeEvent(key, liked, failures + 1);
+        }
+    }
+}
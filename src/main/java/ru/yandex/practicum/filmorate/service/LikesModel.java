@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.LongIntCounter;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+import ru.yandex.practicum.filmorate.util.TopK;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Неизменяемый снимок матрицы лайков для коллаборативной фильтрации. Пользователи и фильмы
+ * пронумерованы плотно (строки по возрастанию ID), связи хранятся в CSR-массивах в обе стороны.
+ * Для каждого пользователя заранее отобраны ближайшие соседи по коэффициенту Жаккара.
+ */
+final class LikesModel {
+    static final LikesModel EMPTY = build(Collections.emptyIterator(), 1);
+
+    // Сходство хранится в целых долях миллионной, чтобы отбирать соседей и фильмы в TopK
+    private static final int SIMILARITY_SCALE = 1_000_000;
+    // Фильмы, которые лайкнули почти все, мало что говорят о вкусе и делают подсчёт квадратичным
+    private static final int MAX_FILM_LIKERS = 10_000;
+
+    private final long[] filmIds;
+    private final long[] userIds;
+    private final int[] filmOffsets;
+    private final int[] filmUsers;
+    private final int[] userOffsets;
+    private final int[] userFilms;
+    private final int neighborsPerUser;
+    private final int[] neighborCounts;
+    private final int[] neighbors;
+    private final int[] similarities;
+
+    private LikesModel(long[] filmIds, long[] userIds, int[] filmOffsets, int[] filmUsers, int neighborsPerUser) {
+        this.filmIds = filmIds;
+        this.userIds = userIds;
+        this.filmOffsets = filmOffsets;
+        this.filmUsers = filmUsers;
+        this.neighborsPerUser = neighborsPerUser;
+        this.userOffsets = new int[userIds.length + 1];
+        this.userFilms = new int[filmUsers.length];
+        for (int userRow : filmUsers) {
+            userOffsets[userRow + 1]++;
+        }
+        for (int i = 0; i < userIds.length; i++) {
+            userOffsets[i + 1] += userOffsets[i];
+        }
+        int[] positions = Arrays.copyOf(userOffsets, userIds.length);
+        for (int filmRow = 0; filmRow < filmIds.length; filmRow++) {
+            for (int i = filmOffsets[filmRow]; i < filmOffsets[filmRow + 1]; i++) {
+                userFilms[positions[filmUsers[i]]++] = filmRow;
+            }
+        }
+        this.neighborCounts = new int[userIds.length];
+        this.neighbors = new int[userIds.length * neighborsPerUser];
+        this.similarities = new int[userIds.length * neighborsPerUser];
+        computeNeighbors();
+    }
+
+    /**
+     * Строит снимок по фильмам, отсортированным по ID.
+     */
+    static LikesModel build(Iterator<Film> films, int neighborsPerUser) {
+        long[] filmIds = new long[16];
+        int[] filmEnds = new int[16];
+        long[] likers = new long[16];
+        int filmCount = 0;
+        int edgeCount = 0;
+        while (films.hasNext()) {
+            Film film = films.next();
+            if (filmCount == filmIds.length) {
+                filmIds = Arrays.copyOf(filmIds, filmCount * 2);
+                filmEnds = Arrays.copyOf(filmEnds, filmCount * 2);
+            }
+            SortedLongSet likes = film.getLikes();
+            for (int i = 0; i < likes.size(); i++) {
+                if (edgeCount == likers.length) {
+                    likers = Arrays.copyOf(likers, edgeCount * 2);
+                }
+                likers[edgeCount++] = likes.get(i);
+            }
+            filmIds[filmCount] = film.getId();
+            filmEnds[filmCount++] = edgeCount;
+        }
+        long[] userIds = Arrays.stream(likers, 0, edgeCount).sorted().distinct().toArray();
+        int[] filmOffsets = new int[filmCount + 1];
+        System.arraycopy(filmEnds, 0, filmOffsets, 1, filmCount);
+        int[] filmUsers = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            filmUsers[i] = Arrays.binarySearch(userIds, likers[i]);
+        }
+        return new LikesModel(Arrays.copyOf(filmIds, filmCount), userIds, filmOffsets, filmUsers, neighborsPerUser);
+    }
+
+    int userCount() {
+        return userIds.length;
+    }
+
+    int filmCount() {
+        return filmIds.length;
+    }
+
+    /**
+     * Фильмы, которые лайкнули соседи пользователя и не лайкнул он сам, по убыванию суммарного сходства.
+     */
+    long[] recommend(long userId, int count) {
+        int userRow = Arrays.binarySearch(userIds, userId);
+        if (userRow < 0) {
+            return new long[0];
+        }
+        LongIntCounter scores = new LongIntCounter();
+        int neighborStart = userRow * neighborsPerUser;
+        for (int n = neighborStart; n < neighborStart + neighborCounts[userRow]; n++) {
+            int neighbor = neighbors[n];
+            for (int i = userOffsets[neighbor]; i < userOffsets[neighbor + 1]; i++) {
+                int filmRow = userFilms[i];
+                if (Arrays.binarySearch(userFilms, userOffsets[userRow], userOffsets[userRow + 1], filmRow) < 0) {
+                    scores.add(filmRow, similarities[n]);
+                }
+            }
+        }
+        TopK top = new TopK(count);
+        scores.forEach(top::offer);
+        long[] filmRows = top.drainSorted();
+        long[] result = new long[filmRows.length];
+        for (int i = 0; i < filmRows.length; i++) {
+            result[i] = filmIds[(int) filmRows[i]];
+        }
+        return result;
+    }
+
+    private void computeNeighbors() {
+        int[] overlaps = new int[userIds.length];
+        int[] touched = new int[userIds.length];
+        long[] selected = new long[neighborsPerUser];
+        int[] selectedSimilarities = new int[neighborsPerUser];
+        for (int user = 0; user < userIds.length; user++) {
+            int touchedCount = 0;
+            for (int i = userOffsets[user]; i < userOffsets[user + 1]; i++) {
+                int film = userFilms[i];
+                if (filmOffsets[film + 1] - filmOffsets[film] > MAX_FILM_LIKERS) {
+                    continue;
+                }
+                for (int j = filmOffsets[film]; j < filmOffsets[film + 1]; j++) {
+                    int other = filmUsers[j];
+                    if (other != user && overlaps[other]++ == 0) {
+                        touched[touchedCount++] = other;
+                    }
+                }
+            }
+            TopK top = new TopK(neighborsPerUser);
+            int degree = userOffsets[user + 1] - userOffsets[user];
+            for (int t = 0; t < touchedCount; t++) {
+                int other = touched[t];
+                int intersection = overlaps[other];
+                int union = degree + userOffsets[other + 1] - userOffsets[other] - intersection;
+                top.offer(other, (int) ((long) intersection * SIMILARITY_SCALE / union));
+                overlaps[other] = 0;
+            }
+            int selectedCount = top.drainSorted(selected, selectedSimilarities);
+            neighborCounts[user] = selectedCount;
+            for (int n = 0; n < selectedCount; n++) {
+                neighbors[user * neighborsPerUser + n] = (int) selected[n];
+                similarities[user * neighborsPerUser + n] = selectedSimilarities[n];
+            }
+        }
+    }
+}
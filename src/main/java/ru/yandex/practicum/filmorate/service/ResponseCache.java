@@ -0,0 +1,217 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.util.DigestUtils;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.VersionStamps;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Кэш сериализованных JSON-ответов для чтения фильма, пользователя и популярных фильмов.
+ * Объём ограничен суммарным размером тел ответов, вытеснение — W-TinyLFU (Caffeine).
+ * <p>
+ * Записи фильма и пользователя удаляются точечно после изменения в хранилище. Чтобы заполнение,
+ * начатое до изменения, не вернуло в кэш устаревшее тело, заполнение сверяет версию своей сущности
+ * до чтения и после записи; изменения других сущностей заполнению не мешают.
+ * <p>
+ * Ключ списков популярных фильмов содержит поколение, а смена поколения делает старые записи
+ * недоступными. Поколение меняется, если изменился фильм из выданного списка или число лайков фильма
+ * дотянулось до последнего места в выданных списках (порог). Изменения фильмов пишутся в кольцо
+ * последних изменений: список, прочитанный до изменения и зарегистрированный после него, находит
+ * изменение в кольце и сам меняет поколение, поэтому его заполнение в кэш не попадёт.
+ */
+public class ResponseCache {
+    private static final int VERSION_STRIPES = 1 << 16;
+    private static final int RECENT_CHANGES = 1 << 12;
+    // Изменение фильма без изменения числа лайков влияет только на списки, где фильм уже есть
+    private static final int NO_RANK_CHANGE = Integer.MIN_VALUE;
+
+    private final Cache<Key, CachedResponse> cache;
+    private final VersionStamps filmVersions = new VersionStamps(VERSION_STRIPES);
+    private final VersionStamps userVersions = new VersionStamps(VERSION_STRIPES);
+    private final AtomicLong popularGeneration = new AtomicLong();
+    // Фильмы и порог списков текущего поколения; при смене поколения заменяются до увеличения номера
+    private volatile PopularLists popularLists = new PopularLists();
+    private final AtomicLong changeSequence = new AtomicLong();
+    private final AtomicReferenceArray<FilmChange> recentChanges = new AtomicReferenceArray<>(RECENT_CHANGES);
+
+    public ResponseCache(long maxBytes) {
+        this.cache = maxBytes <= 0 ? null : Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, CachedResponse response) -> response.body().length)
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public long estimatedSize() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache == null ? CacheStats.empty() : cache.stats();
+    }
+
+    public Key filmKey(long filmId) {
+        return new Key(Kind.FILM, filmId, 0);
+    }
+
+    public Key userKey(long userId) {
+        return new Key(Kind.USER, userId, 0);
+    }
+
+    public Key popularFilmsKey(int count) {
+        return new Key(Kind.POPULAR_FILMS, count, popularGeneration.get());
+    }
+
+    public CachedResponse get(Key key) {
+        return cache == null ? null : cache.getIfPresent(key);
+    }
+
+    /**
+     * Отметка начала заполнения; берётся до чтения данных, из которых строится ответ.
+     */
+    public long fillStamp(Key key) {
+        return switch (key.kind()) {
+            case FILM -> filmVersions.get(key.id());
+            case USER -> userVersions.get(key.id());
+            case POPULAR_FILMS -> popularGeneration.get();
+        };
+    }
+
+    public CachedResponse put(Key key, long fillStamp, byte[] body) {
+        CachedResponse response = new CachedResponse(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        if (cache == null || fillStamp(key) != fillStamp) {
+            return response;
+        }
+        cache.put(key, response);
+        // Инвалидация могла пройти между проверкой и записью — тогда убираем только свою запись
+        if (fillStamp(key) != fillStamp) {
+            cache.asMap().remove(key, response);
+        }
+        return response;
+    }
+
+    /**
+     * Отметка перед чтением списка популярных из хранилища; передаётся в {@link #trackPopularFilms}.
+     */
+    public long popularReadMark() {
+        return changeSequence.get();
+    }
+
+    /**
+     * Запоминает фильмы и порог выданного списка популярных, чтобы их изменения сразу меняли поколение.
+     * Если после readMark изменился фильм, который может изменить этот список, поколение меняется сразу.
+     */
+    public void trackPopularFilms(int count, List<Film> films, long readMark) {
+        if (cache == null) {
+            return;
+        }
+        PopularLists lists = popularLists;
+        films.forEach(film -> lists.filmIds.add(film.getId()));
+        // В неполный список войдёт любой фильм, поэтому порог у него ниже любого числа лайков
+        lists.floor.accumulateAndGet(films.size() < count ? NO_RANK_CHANGE + 1 : films.getLast().getLikesCount(),
+                Math::min);
+        long lastChange = changeSequence.get();
+        if (lastChange - readMark > RECENT_CHANGES) {
+            nextPopularGeneration();
+            return;
+        }
+        for (long sequence = readMark + 1; sequence <= lastChange; sequence++) {
+            FilmChange change = recentChanges.get((int) (sequence & (RECENT_CHANGES - 1)));
+            // Ещё не записанное изменение само увидит список; перезаписанное могло быть любым
+            if (change != null && (change.sequence() > sequence
+                    || change.sequence() == sequence && lists.affectedBy(change))) {
+                nextPopularGeneration();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Изменение данных фильма без изменения лайков.
+     */
+    public void invalidateFilm(long filmId) {
+        filmChanged(filmId, NO_RANK_CHANGE);
+    }
+
+    /**
+     * Изменение лайков фильма; likesCount — число лайков после изменения.
+     */
+    public void invalidateFilmLikes(long filmId, int likesCount) {
+        filmChanged(filmId, likesCount);
+    }
+
+    /**
+     * Новые фильмы без лайков: войти в список они могут, только если в нём есть места для фильмов без лайков.
+     */
+    public void invalidatePopularFilms() {
+        recordChange(-1, 0);
+    }
+
+    public void invalidateUser(long userId) {
+        userVersions.bump(userId);
+        if (cache != null) {
+            cache.invalidate(userKey(userId));
+        }
+    }
+
+    private void filmChanged(long filmId, int likesCount) {
+        filmVersions.bump(filmId);
+        if (cache != null) {
+            cache.invalidate(filmKey(filmId));
+        }
+        recordChange(filmId, likesCount);
+    }
+
+    private void recordChange(long filmId, int likesCount) {
+        if (cache == null) {
+            return;
+        }
+        long sequence = changeSequence.incrementAndGet();
+        FilmChange change = new FilmChange(sequence, filmId, likesCount);
+        recentChanges.set((int) (sequence & (RECENT_CHANGES - 1)), change);
+        if (popularLists.affectedBy(change)) {
+            nextPopularGeneration();
+        }
+    }
+
+    private void nextPopularGeneration() {
+        popularLists = new PopularLists();
+        popularGeneration.incrementAndGet();
+    }
+
+    private record FilmChange(long sequence, long filmId, int likesCount) {
+    }
+
+    private static final class PopularLists {
+        private final Set<Long> filmIds = ConcurrentHashMap.newKeySet();
+        // Наименьшее число лайков на последнем месте выданных списков
+        private final AtomicInteger floor = new AtomicInteger(Integer.MAX_VALUE);
+
+        boolean affectedBy(FilmChange change) {
+            return filmIds.contains(change.filmId()) || change.likesCount() >= floor.get();
+        }
+    }
+
+    public enum Kind {
+        FILM, USER, POPULAR_FILMS
+    }
+
+    public record Key(Kind kind, long id, long generation) {
+    }
+
+    public record CachedResponse(byte[] body, String etag) {
+    }
+}
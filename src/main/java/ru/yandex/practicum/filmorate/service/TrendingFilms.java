@@ -0,0 +1,396 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.util.LongIntCounter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Фильмы, набравшие больше всего лайков за последний час, сутки и неделю. Окно — кольцо корзин времени
+ * с разреженными счётчиками лайков по фильмам; сумма по окну и рейтинг обновляются пачками изменений,
+ * а при сдвиге окна устаревшая корзина вычитается целиком. Запрос читает только начало рейтинга,
+ * а память окна пропорциональна числу фильмов с лайками внутри него и ограничена {@code maxFilms}.
+ * <p>
+ * Лайки сначала копятся в полосах буфера по потокам, поэтому запрос на лайк берёт только блокировку
+ * своей полосы. Буфер применяется к окнам целиком — когда полоса заполнилась или сменила отметку времени
+ * и перед чтением рейтинга. Полосы при этом сливаются в одно изменение на пару (отметка времени, фильм),
+ * а отметки применяются по порядку, поэтому лайк и его снятие, записанные разными потоками, гасят друг друга.
+ * <p>
+ * В заполненном окне новый фильм вытесняет последний в рейтинге и наследует его лайки по корзинам
+ * (как в алгоритме Space-Saving): новинка сразу конкурирует с хвостом, а её счёт завышен не больше
+ * чем на счёт вытесненного фильма и выравнивается по мере сдвига окна.
+ */
+public class TrendingFilms {
+    public static final int MAX_COUNT = 100;
+    public static final int DEFAULT_MAX_FILMS = 100_000;
+    private static final int STRIPES = 16;
+    private static final int FLUSH_THRESHOLD = 256;
+
+    private final Clock clock;
+    private final Map<Window, SlidingWindow> windows = new EnumMap<>(Window.class);
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    // Сливать и применять буфер может только один поток, иначе пачки отметок применятся не по порядку
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public TrendingFilms(Clock clock, int maxFilms) {
+        if (maxFilms <= 0) {
+            throw new IllegalArgumentException("Окно должно вмещать хотя бы один фильм: " + maxFilms);
+        }
+        this.clock = clock;
+        long now = clock.millis();
+        for (Window window : Window.values()) {
+            windows.put(window, new SlidingWindow(window, maxFilms, now));
+        }
+        Arrays.setAll(stripes, i -> new Stripe());
+    }
+
+    public void recordLike(long filmId) {
+        record(filmId, 1);
+    }
+
+    /**
+     * Время исходного лайка не хранится, поэтому снятый лайк вычитается из самой свежей корзины,
+     * где у фильма есть лайки. Если их в окне нет, лайк был поставлен раньше и окно не меняется.
+     */
+    public void recordUnlike(long filmId) {
+        record(filmId, -1);
+    }
+
+    /**
+     * Изменение числа лайков фильма: положительное — новые лайки, отрицательное — снятые.
+     */
+    public void record(long filmId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        // Отметка времени — корзина самого короткого окна, она делит корзины остальных окон
+        long tick = Math.floorDiv(clock.millis(), Window.HOUR.bucketMillis) * Window.HOUR.bucketMillis;
+        Stripe stripe = stripes[(int) Thread.currentThread().threadId() & (STRIPES - 1)];
+        if (stripe.add(filmId, delta, tick)) {
+            flush();
+        }
+    }
+
+    public long[] top(Window window, int count) {
+        flush();
+        return windows.get(window).top(count, clock.millis());
+    }
+
+    /**
+     * Применяет к окнам все накопленные изменения.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            NavigableMap<Long, Batch> batches = new TreeMap<>();
+            for (Stripe stripe : stripes) {
+                stripe.drainTo(batches);
+            }
+            batches.values().forEach(this::apply);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int trackedFilms(Window window) {
+        return windows.get(window).trackedFilms();
+    }
+
+    public long evictedFilms(Window window) {
+        return windows.get(window).evictedFilms();
+    }
+
+    private void apply(Batch batch) {
+        long now = clock.millis();
+        for (SlidingWindow window : windows.values()) {
+            window.apply(batch, now);
+        }
+    }
+
+    public enum Window {
+        HOUR("1h", Duration.ofHours(1), 12),
+        DAY("24h", Duration.ofDays(1), 24),
+        WEEK("7d", Duration.ofDays(7), 28);
+
+        private final String name;
+        private final long bucketMillis;
+        private final int buckets;
+
+        Window(String name, Duration length, int buckets) {
+            this.name = name;
+            this.bucketMillis = length.toMillis() / buckets;
+            this.buckets = buckets;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static Window of(String name) {
+            for (Window window : values()) {
+                if (window.name.equals(name)) {
+                    return window;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Изменения с общей отметкой времени; лайки и снятия считаются отдельно, потому что счётчики
+     * не бывают отрицательными, а в окно попадает их разность по фильму.
+     */
+    private record Batch(long tickMillis, LongIntCounter likes, LongIntCounter unlikes) {
+
+        /**
+         * Сливает меньшую пачку той же отметки в большую и возвращает большую.
+         */
+        Batch merge(Batch other) {
+            if (likes.size() + unlikes.size() < other.likes.size() + other.unlikes.size()) {
+                return other.merge(this);
+            }
+            other.likes.forEach(likes::add);
+            other.unlikes.forEach(unlikes::add);
+            return this;
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        // Пачки прежних отметок времени, ещё не применённые к окнам
+        private final List<Batch> sealed = new ArrayList<>();
+        private LongIntCounter likes = new LongIntCounter();
+        private LongIntCounter unlikes = new LongIntCounter();
+        private long tickMillis;
+        private int events;
+
+        /**
+         * Добавляет изменение; true — буфер пора применить: сменилась отметка времени или полоса заполнилась.
+         */
+        boolean add(long filmId, int delta, long tick) {
+            lock.lock();
+            try {
+                boolean tickChanged = events > 0 && tick != tickMillis;
+                if (tickChanged) {
+                    sealed.add(take());
+                }
+                tickMillis = tick;
+                if (delta > 0) {
+                    likes.add(filmId, delta);
+                } else {
+                    unlikes.add(filmId, -delta);
+                }
+                events++;
+                return tickChanged || events >= FLUSH_THRESHOLD;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void drainTo(Map<Long, Batch> batches) {
+            lock.lock();
+            try {
+                for (Batch batch : sealed) {
+                    batches.merge(batch.tickMillis(), batch, Batch::merge);
+                }
+                sealed.clear();
+                if (events > 0) {
+                    Batch batch = take();
+                    batches.merge(batch.tickMillis(), batch, Batch::merge);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Batch take() {
+            Batch batch = new Batch(tickMillis, likes, unlikes);
+            likes = new LongIntCounter();
+            unlikes = new LongIntCounter();
+            events = 0;
+            return batch;
+        }
+    }
+
+    private static final class SlidingWindow {
+        private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::likes).reversed()
+                .thenComparingLong(Entry::filmId);
+
+        private final Window window;
+        private final int maxFilms;
+        private final LongIntCounter[] buckets;
+        private final LongIntCounter totals = new LongIntCounter();
+        private final NavigableSet<Entry> ranking = new TreeSet<>(ORDER);
+        private final ReentrantLock lock = new ReentrantLock();
+        // Номер самой свежей корзины с начала эпохи
+        private long head;
+        private long evicted;
+
+        SlidingWindow(Window window, int maxFilms, long now) {
+            this.window = window;
+            this.maxFilms = maxFilms;
+            this.buckets = new LongIntCounter[window.buckets];
+            Arrays.setAll(buckets, i -> new LongIntCounter());
+            this.head = Math.floorDiv(now, window.bucketMillis);
+        }
+
+        void apply(Batch batch, long now) {
+            lock.lock();
+            try {
+                advance(now);
+                long bucketNumber = Math.min(Math.floorDiv(batch.tickMillis(), window.bucketMillis), head);
+                if (bucketNumber <= head - buckets.length) {
+                    return;
+                }
+                batch.likes().forEach((filmId, likes) -> {
+                    int net = likes - batch.unlikes().get(filmId);
+                    if (net > 0) {
+                        add(filmId, net, bucketNumber);
+                    } else if (net < 0) {
+                        remove(filmId, -net);
+                    }
+                });
+                batch.unlikes().forEach((filmId, unlikes) -> {
+                    if (batch.likes().get(filmId) == 0) {
+                        remove(filmId, unlikes);
+                    }
+                });
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long[] top(int count, long now) {
+            lock.lock();
+            try {
+                advance(now);
+                long[] filmIds = new long[Math.min(count, ranking.size())];
+                Iterator<Entry> entries = ranking.iterator();
+                for (int i = 0; i < filmIds.length; i++) {
+                    filmIds[i] = entries.next().filmId();
+                }
+                return filmIds;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int trackedFilms() {
+            lock.lock();
+            try {
+                return totals.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long evictedFilms() {
+            lock.lock();
+            try {
+                return evicted;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void add(long filmId, int count, long bucketNumber) {
+            int likes = totals.get(filmId);
+            if (likes == 0 && totals.size() >= maxFilms) {
+                likes = evictLast(filmId);
+            }
+            bucket(bucketNumber).add(filmId, count);
+            update(filmId, likes, likes + count);
+        }
+
+        private void remove(long filmId, int count) {
+            int likes = totals.get(filmId);
+            int removed = 0;
+            for (int age = 0; age < buckets.length && removed < count; age++) {
+                LongIntCounter bucket = bucket(head - age);
+                int taken = Math.min(bucket.get(filmId), count - removed);
+                if (taken > 0) {
+                    bucket.add(filmId, -taken);
+                    removed += taken;
+                }
+            }
+            if (removed > 0) {
+                update(filmId, likes, likes - removed);
+            }
+        }
+
+        /**
+         * Передаёт лайки последнего в рейтинге фильма новому по корзинам, чтобы они истекали в прежние сроки.
+         * Возвращает унаследованный счёт.
+         */
+        private int evictLast(long filmId) {
+            Entry last = ranking.pollLast();
+            for (LongIntCounter bucket : buckets) {
+                int likes = bucket.get(last.filmId());
+                if (likes > 0) {
+                    bucket.add(last.filmId(), -likes);
+                    bucket.add(filmId, likes);
+                }
+            }
+            totals.add(last.filmId(), -last.likes());
+            totals.add(filmId, last.likes());
+            ranking.add(new Entry(last.likes(), filmId));
+            evicted++;
+            return last.likes();
+        }
+
+        private void advance(long now) {
+            long current = Math.floorDiv(now, window.bucketMillis);
+            if (current <= head) {
+                return;
+            }
+            long expired = Math.min(current - head, buckets.length);
+            for (long i = 1; i <= expired; i++) {
+                expire(head + i);
+            }
+            head = current;
+        }
+
+        private void expire(long bucketNumber) {
+            int slot = (int) Math.floorMod(bucketNumber, (long) buckets.length);
+            LongIntCounter bucket = buckets[slot];
+            if (bucket.size() == 0) {
+                return;
+            }
+            bucket.forEach((filmId, likes) -> {
+                int total = totals.get(filmId);
+                update(filmId, total, total - likes);
+            });
+            // Новый счётчик вместо очистки, чтобы всплеск лайков не держал большие массивы
+            buckets[slot] = new LongIntCounter();
+        }
+
+        private LongIntCounter bucket(long bucketNumber) {
+            return buckets[(int) Math.floorMod(bucketNumber, (long) buckets.length)];
+        }
+
+        private void update(long filmId, int oldLikes, int newLikes) {
+            if (oldLikes > 0) {
+                ranking.remove(new Entry(oldLikes, filmId));
+            }
+            totals.add(filmId, newLikes - oldLikes);
+            if (newLikes > 0) {
+                ranking.add(new Entry(newLikes, filmId));
+            }
+        }
+    }
+
+    private record Entry(int likes, long filmId) {
+    }
+}
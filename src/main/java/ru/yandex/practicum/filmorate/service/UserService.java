@@ -1,31 +1,55 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.LookupResult;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
+@Timed(value = "filmorate.service", histogram = true)
 @Service
 public class UserService {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_RECOMMENDATIONS = 10;
     private final UserStorage userStorage;
+    private final FriendRecommender friendRecommender;
+    private final ResponseCache responseCache;
 
-    public UserService(UserStorage userStorage) {
+    public UserService(UserStorage userStorage, FriendRecommender friendRecommender, ResponseCache responseCache) {
         this.userStorage = userStorage;
+        this.friendRecommender = friendRecommender;
+        this.responseCache = responseCache;
     }
 
     public Collection<User> findAllUsers() {
         return userStorage.findAll();
     }
 
+    public List<User> findUsersPage(Long afterId, Integer limit) {
+        long after = afterId == null ? 0 : afterId;
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (after < 0 || pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new ValidationException(String.format(
+                    "Некорректные параметры страницы: after=%d, limit=%d (допустимо от 1 до %d)",
+                    after, pageSize, MAX_PAGE_SIZE));
+        }
+        return userStorage.findPage(after, pageSize);
+    }
+
+    public Stream<User> streamAllUsers() {
+        return userStorage.stream();
+    }
+
     public User getUserById(Long id) {
         User user = userStorage.getById(id);
         if (user == null) {
@@ -35,104 +59,124 @@ public class UserService {
     }
 
     public User addUser(User user) {
-        log.info("addUser - добавление пользователя: {}", user.getName());
+        log.debug("addUser - добавление пользователя: {}", user.getName());
         validateEmailForCreate(user);
         if (user.getName() == null || user.getName().isBlank()) {
-            log.info("addUser - имя не указано, установлен логин: {}", user.getLogin());
+            log.debug("addUser - имя не указано, установлен логин: {}", user.getLogin());
             user.setName(user.getLogin());
         }
         User savedUser = userStorage.add(user);
-        log.info("addUser - пользователь успешно добавлен. ID: {}, Имя: {}", savedUser.getId(), savedUser.getName());
+        log.debug("addUser - пользователь успешно добавлен. ID: {}, Имя: {}", savedUser.getId(), savedUser.getName());
         return savedUser;
     }
 
+    /**
+     * Добавляет пакет пользователей. Пользователи с занятым email не добавляются и остаются без ID.
+     */
+    public List<User> addUsers(List<User> users) {
+        log.debug("addUsers - добавление пакета пользователей: {}", users.size());
+        for (User user : users) {
+            if (user.getName() == null || user.getName().isBlank()) {
+                user.setName(user.getLogin());
+            }
+        }
+        return userStorage.addAll(users);
+    }
+
     public User updateUser(User user) {
-        log.info("updateUser - обновление пользователя: {}", user);
-        User existingUser = getUserById(user.getId());
+        log.debug("updateUser - обновление пользователя: {}", user);
+        getUserById(user.getId());
         validateEmailForUpdate(user.getEmail(), user.getId());
-        existingUser.setLogin(user.getLogin());
-        existingUser.setEmail(user.getEmail());
         if (user.getName() == null || user.getName().isBlank()) {
-            existingUser.setName(user.getLogin());
-        } else {
-            existingUser.setName(user.getName());
+            user.setName(user.getLogin());
         }
-        existingUser.setBirthday(user.getBirthday());
-        userStorage.update(existingUser);
-        log.info("updateUser - пользователь успешно обновлен. ID: {}, Имя: {}",
-                existingUser.getId(), existingUser.getName());
-        return existingUser;
+        User updatedUser = userStorage.update(user);
+        responseCache.invalidateUser(updatedUser.getId());
+        log.debug("updateUser - пользователь успешно обновлен. ID: {}, Имя: {}",
+                updatedUser.getId(), updatedUser.getName());
+        return updatedUser;
     }
 
     public User addFriend(Long userId, Long friendId) {
-        log.info("Добавление друга {} в друзья пользователю {}", friendId, userId);
+        log.debug("Добавление друга {} в друзья пользователю {}", friendId, userId);
         User user = getUserById(userId);
-        User friend = getUserById(friendId);
+        getUserById(friendId);
         if (userId.equals(friendId)) {
             log.warn("Попытка добавить самого себя в друзья. Пользователь ID: {}", userId);
             throw new ValidationException(String.format("Пользователь не может добавить сам себя в друзья. ID: %d", userId));
         }
-        if (user.hasFriend(friendId)) {
+        if (!userStorage.addFriend(userId, friendId)) {
             log.warn("Пользователи {} и {} уже друзья", userId, friendId);
             throw new ValidationException(String.format("Пользователь %d уже является другом пользователя %d", friendId, userId));
         }
-        user.addFriend(friendId);
-        friend.addFriend(userId);
-        userStorage.update(user);
-        userStorage.update(friend);
-        log.info("Пользователи {} и {} теперь друзья", userId, friendId);
+        invalidateRecommendations(userId, friendId);
+        log.debug("Пользователи {} и {} теперь друзья", userId, friendId);
         return user;
     }
 
     public User removeFriend(Long userId, Long friendId) {
-        log.info("Удаление друга {} у пользователя {}", friendId, userId);
+        log.debug("Удаление друга {} у пользователя {}", friendId, userId);
         User user = getUserById(userId);
-        User friend = getUserById(friendId);
-        if (!user.hasFriend(friendId)) {
-            log.info("Пользователь {} не является другом пользователя {}. Возвращаем пользователя без изменений.",
+        getUserById(friendId);
+        if (!userStorage.removeFriend(userId, friendId)) {
+            log.debug("Пользователь {} не является другом пользователя {}. Возвращаем пользователя без изменений.",
                     friendId, userId);
             return user;
         }
-        user.removeFriend(friendId);
-        friend.removeFriend(userId);
-        userStorage.update(user);
-        userStorage.update(friend);
-        log.info("Пользователи {} и {} больше не являются друзьями", userId, friendId);
+        invalidateRecommendations(userId, friendId);
+        log.debug("Пользователи {} и {} больше не являются друзьями", userId, friendId);
         return user;
     }
 
     public List<User> getFriends(Long userId) {
-        log.info("Получение списка друзей пользователя {}", userId);
+        log.debug("Получение списка друзей пользователя {}", userId);
         User user = getUserById(userId);
-        return user.getFriends().stream()
-                .map(userStorage::getById)
-                .collect(Collectors.toList());
+        return findUsers(user.getFriends());
     }
 
     public List<User> getCommonFriends(Long userId1, Long userId2) {
-        log.info("Получение списка общих друзей пользователей {} и {}", userId1, userId2);
+        log.debug("Получение списка общих друзей пользователей {} и {}", userId1, userId2);
         User user1 = getUserById(userId1);
         User user2 = getUserById(userId2);
-        Set<Long> commonIds = new HashSet<>(user1.getFriends());
-        commonIds.retainAll(user2.getFriends());
-        return commonIds.stream()
-                .map(userStorage::getById)
-                .collect(Collectors.toList());
+        return findUsers(user1.getFriends().intersect(user2.getFriends()));
+    }
+
+    public List<User> getRecommendations(Long userId, Integer limit) {
+        log.debug("Получение рекомендаций друзей для пользователя {}", userId);
+        int recommendationsCount = limit == null ? DEFAULT_RECOMMENDATIONS : limit;
+        if (recommendationsCount <= 0 || recommendationsCount > FriendRecommender.MAX_RECOMMENDATIONS) {
+            throw new ValidationException(String.format("Некорректный limit=%d (допустимо от 1 до %d)",
+                    recommendationsCount, FriendRecommender.MAX_RECOMMENDATIONS));
+        }
+        getUserById(userId);
+        long[] recommendedIds = friendRecommender.recommend(userId, recommendationsCount);
+        return findUsers(Arrays.stream(recommendedIds).boxed().toList());
+    }
+
+    // Сбрасываем кэш по спискам друзей уже после изменения, чтобы захватить обе стороны новой дружбы
+    private void invalidateRecommendations(Long userId, Long friendId) {
+        friendRecommender.invalidate(userId, friendId,
+                getUserById(userId).getFriends(), getUserById(friendId).getFriends());
+    }
+
+    private List<User> findUsers(Collection<Long> ids) {
+        LookupResult<User> result = userStorage.getByIds(ids);
+        if (result.hasMissing()) {
+            log.warn("Не найдены пользователи из списка друзей: {}", result.missingIds());
+        }
+        return result.found();
     }
 
     private void validateEmailForCreate(User user) {
-        boolean emailUsedByOther = userStorage.findAll().stream()
-                .anyMatch(existingUser -> existingUser.getEmail().equalsIgnoreCase(user.getEmail()));
-        if (emailUsedByOther) {
+        if (userStorage.findIdByEmail(user.getEmail()).isPresent()) {
             throw new ValidationException("Email " + user.getEmail() + " уже используется");
         }
     }
 
     private void validateEmailForUpdate(String email, Long userId) {
-        boolean emailUsedByOther = userStorage.findAll().stream()
-                .filter(existingUser -> existingUser.getId() != null && !existingUser.getId().equals(userId))
-                .filter(existingUser -> existingUser.getEmail() != null)
-                .anyMatch(existingUser -> existingUser.getEmail().equalsIgnoreCase(email));
+        boolean emailUsedByOther = userStorage.findIdByEmail(email)
+                .filter(ownerId -> !ownerId.equals(userId))
+                .isPresent();
         if (emailUsedByOther) {
             throw new ValidationException("Email " + email + " уже используется");
         }
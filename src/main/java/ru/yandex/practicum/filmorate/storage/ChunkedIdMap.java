@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Значения по ID в массивах-фрагментах по 4096 ячеек. Генераторы выдают ID подряд или блоками, поэтому
+ * фрагменты заполнены плотно и запись стоит одну ссылку — без узла, упакованного ключа и уровней индекса
+ * {@link java.util.concurrent.ConcurrentSkipListMap}, а чтение сводится к двум обращениям к массивам.
+ * <p>
+ * Чтение без блокировок, запись в ячейку — CAS. Каталог фрагментов растёт и пополняется под блокировкой:
+ * фрагменты не удаляются и переходят в новый каталог по ссылке, поэтому запись в ячейку не теряется.
+ */
+public class ChunkedIdMap<T> {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final long MAX_CHUNKS = Integer.MAX_VALUE - 8;
+
+    private final ReentrantLock growLock = new ReentrantLock();
+    private volatile AtomicReferenceArray<AtomicReferenceArray<T>> chunks = new AtomicReferenceArray<>(16);
+
+    public T get(long id) {
+        AtomicReferenceArray<T> chunk = chunkOf(id);
+        return chunk == null ? null : chunk.get((int) (id & CHUNK_MASK));
+    }
+
+    public T put(long id, T value) {
+        return chunkFor(id).getAndSet((int) (id & CHUNK_MASK), value);
+    }
+
+    public T putIfAbsent(long id, T value) {
+        AtomicReferenceArray<T> chunk = chunkFor(id);
+        int slot = (int) (id & CHUNK_MASK);
+        while (true) {
+            if (chunk.compareAndSet(slot, null, value)) {
+                return null;
+            }
+            T existing = chunk.get(slot);
+            if (existing != null) {
+                return existing;
+            }
+        }
+    }
+
+    /**
+     * Заменяет значение, если текущее совпадает с expected по ссылке; null означает отсутствие значения.
+     */
+    public boolean replace(long id, T expected, T updated) {
+        return chunkFor(id).compareAndSet((int) (id & CHUNK_MASK), expected, updated);
+    }
+
+    /**
+     * Наименьший занятый ID больше afterId или -1, если таких нет.
+     */
+    public long higherId(long afterId) {
+        if (afterId == Long.MAX_VALUE) {
+            return -1;
+        }
+        long id = Math.max(afterId + 1, 0);
+        AtomicReferenceArray<AtomicReferenceArray<T>> current = chunks;
+        for (long chunkIndex = id >>> CHUNK_BITS; chunkIndex < current.length(); chunkIndex++) {
+            AtomicReferenceArray<T> chunk = current.get((int) chunkIndex);
+            if (chunk != null) {
+                for (int slot = (int) (id & CHUNK_MASK); slot < CHUNK_SIZE; slot++) {
+                    if (chunk.get(slot) != null) {
+                        return (chunkIndex << CHUNK_BITS) | slot;
+                    }
+                }
+            }
+            id = (chunkIndex + 1) << CHUNK_BITS;
+        }
+        return -1;
+    }
+
+    private AtomicReferenceArray<T> chunkOf(long id) {
+        long chunkIndex = id >>> CHUNK_BITS;
+        AtomicReferenceArray<AtomicReferenceArray<T>> current = chunks;
+        return id < 0 || chunkIndex >= current.length() ? null : current.get((int) chunkIndex);
+    }
+
+    private AtomicReferenceArray<T> chunkFor(long id) {
+        AtomicReferenceArray<T> chunk = chunkOf(id);
+        if (chunk != null) {
+            return chunk;
+        }
+        long chunkIndex = id >>> CHUNK_BITS;
+        if (id < 0 || chunkIndex >= MAX_CHUNKS) {
+            throw new IllegalArgumentException("ID вне допустимого диапазона: " + id);
+        }
+        growLock.lock();
+        try {
+            AtomicReferenceArray<AtomicReferenceArray<T>> current = chunks;
+            if (chunkIndex >= current.length()) {
+                int length = (int) Math.min(MAX_CHUNKS, Math.max(chunkIndex + 1, current.length() * 2L));
+                AtomicReferenceArray<AtomicReferenceArray<T>> grown = new AtomicReferenceArray<>(length);
+                for (int i = 0; i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                chunks = grown;
+                current = grown;
+            }
+            chunk = current.get((int) chunkIndex);
+            if (chunk == null) {
+                chunk = new AtomicReferenceArray<>(CHUNK_SIZE);
+                current.set((int) chunkIndex, chunk);
+            }
+            return chunk;
+        } finally {
+            growLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+/**
+ * Где живут списки связей сущностей — лайки и дружба. По умолчанию множества остаются в куче внутри сущностей;
+ * {@link OffHeapEdgeStore} переносит их в память вне кучи.
+ */
+public interface EdgeStore {
+    EdgeStore HEAP = (ownerId, edges) -> edges;
+
+    /**
+     * Переносит связи владельца в хранилище и возвращает множество, которое нужно сохранить в сущности.
+     * Если связи владельца уже перенесены, переданное множество устарело и игнорируется.
+     * Вызывается перед изменением связей под блокировкой владельца.
+     */
+    LongSet adopt(long ownerId, LongSet edges);
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * Неизменяемый архив сущностей, отсортированных по ID (например, отображённый в память снимок).
+ * Сущности создаются только при обращении к конкретной строке.
+ */
+public interface EntityArchive<T> {
+
+    int size();
+
+    long idAt(int row);
+
+    int rowOf(long id);
+
+    int firstRowAfter(long id);
+
+    T materialize(int row);
+}
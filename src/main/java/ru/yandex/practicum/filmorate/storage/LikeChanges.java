@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * Сколько лайков пакета действительно поставлено и снято (уже применённые изменения не считаются)
+ * и сколько лайков у фильма после пакета.
+ */
+public record LikeChanges(int added, int removed, int likesCount) {
+}
@@ -0,0 +1,511 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.util.LongSet;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Списки связей по ID владельца в памяти вне кучи ({@link ByteBuffer#allocateDirect}). В куче остаются
+ * только каталоги сегментов и по небольшому представлению на сущность, поэтому граф лайков и дружбы
+ * не растит старое поколение и не удлиняет сборки мусора.
+ * <p>
+ * Список хранится отсортированным в блоке, ёмкость которого — степень двойки не меньше initialCapacity.
+ * Заполненный блок переносится во вдвое больший, заполненный меньше чем на четверть — во вдвое меньший;
+ * освободившиеся блоки переиспользуются по классам размера. Блоки выделяются из сегментов segmentSize,
+ * сверх maxSize память не выделяется. Индекс по ID владельца тоже вне кучи: фрагменты по 4096 владельцев,
+ * в каждой ячейке адрес блока, длина списка и класс размера блока.
+ * <p>
+ * Запись идёт под блокировкой полосы владельца, чтение — оптимистичное по {@link StampedLock}: прочитанное
+ * перепроверяется штампом и при конфликте читается заново под блокировкой. Сегменты не освобождаются,
+ * поэтому чтение по устаревшему адресу безопасно.
+ */
+public class OffHeapEdgeStore implements EdgeStore {
+    private static final long MIN_SEGMENT_SIZE = 64 * 1024;
+    private static final long MAX_SEGMENT_SIZE = 1 << 30;
+    private static final int INDEX_CHUNK_BITS = 12;
+    private static final long INDEX_CHUNK_MASK = (1L << INDEX_CHUNK_BITS) - 1;
+    private static final int INDEX_CHUNK_LONGS = 2 << INDEX_CHUNK_BITS;
+    private static final long MAX_INDEX_CHUNKS = Integer.MAX_VALUE - 8;
+    private static final int STRIPES = 1024;
+    private static final long NO_BLOCK = -1;
+
+    private final int segmentShift;
+    private final long segmentMask;
+    private final int minSizeClass;
+    private final long maxSize;
+    private final StampedLock[] locks = new StampedLock[STRIPES];
+    private final ReentrantLock allocationLock = new ReentrantLock();
+    // Вершины списков свободных блоков по классам размера; ссылка на следующий блок хранится в самом блоке
+    private final long[] freeBlocks;
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private volatile LongBuffer[] segments = new LongBuffer[0];
+    private volatile LongBuffer[] indexChunks = new LongBuffer[0];
+    private long nextAddress;
+    private long segmentEnd;
+
+    public OffHeapEdgeStore(long segmentSize, long maxSize, int initialCapacity) {
+        if (Long.bitCount(segmentSize) != 1 || segmentSize < MIN_SEGMENT_SIZE || segmentSize > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Размер сегмента должен быть степенью двойки от 64KB до 1GB: "
+                    + segmentSize);
+        }
+        if (maxSize < segmentSize) {
+            throw new IllegalArgumentException("Предел памяти " + maxSize + " меньше размера сегмента " + segmentSize);
+        }
+        if (Integer.bitCount(initialCapacity) != 1 || initialCapacity < 2 || initialCapacity * 8L > segmentSize) {
+            throw new IllegalArgumentException("Начальная ёмкость списка должна быть степенью двойки от 2: "
+                    + initialCapacity);
+        }
+        this.segmentShift = Long.numberOfTrailingZeros(segmentSize >>> 3);
+        this.segmentMask = (1L << segmentShift) - 1;
+        this.minSizeClass = Integer.numberOfTrailingZeros(initialCapacity);
+        this.maxSize = maxSize;
+        this.freeBlocks = new long[segmentShift + 1];
+        Arrays.fill(freeBlocks, NO_BLOCK);
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new StampedLock();
+        }
+    }
+
+    @Override
+    public LongSet adopt(long ownerId, LongSet edges) {
+        if (edges instanceof Edges view && view.store() == this) {
+            return edges;
+        }
+        StampedLock lock = lockOf(ownerId);
+        long stamp = lock.writeLock();
+        try {
+            LongBuffer chunk = indexChunkFor(ownerId);
+            int slot = slotOf(ownerId);
+            if (sizeClassOf(chunk.get(slot + 1)) == 0 && !edges.isEmpty()) {
+                replace(ownerId, chunk, slot, edges.snapshot().toLongArray());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return new Edges(ownerId);
+    }
+
+    public int size(long ownerId) {
+        StampedLock lock = lockOf(ownerId);
+        long stamp = lock.tryOptimisticRead();
+        int length = lengthOf(slotWord(ownerId));
+        if (lock.validate(stamp)) {
+            return length;
+        }
+        stamp = lock.readLock();
+        try {
+            return lengthOf(slotWord(ownerId));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean contains(long ownerId, long value) {
+        StampedLock lock = lockOf(ownerId);
+        long stamp = lock.tryOptimisticRead();
+        long address = slotAddress(ownerId);
+        int length = lengthOf(slotWord(ownerId));
+        if (lock.validate(stamp)) {
+            boolean found = indexOf(address, length, value) >= 0;
+            if (lock.validate(stamp)) {
+                return found;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return indexOf(slotAddress(ownerId), lengthOf(slotWord(ownerId)), value) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public SortedLongSet get(long ownerId) {
+        StampedLock lock = lockOf(ownerId);
+        long stamp = lock.tryOptimisticRead();
+        long address = slotAddress(ownerId);
+        int length = lengthOf(slotWord(ownerId));
+        // Длина проверяется до выделения массива: несогласованная ячейка могла бы дать произвольный размер
+        if (lock.validate(stamp)) {
+            long[] values = copy(address, length);
+            if (lock.validate(stamp)) {
+                return SortedLongSet.ofSorted(values);
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return SortedLongSet.ofSorted(copy(slotAddress(ownerId), lengthOf(slotWord(ownerId))));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean add(long ownerId, long value) {
+        StampedLock lock = lockOf(ownerId);
+        long stamp = lock.writeLock();
+        try {
+            LongBuffer chunk = indexChunkFor(ownerId);
+            int slot = slotOf(ownerId);
+            long address = chunk.get(slot);
+            long word = chunk.get(slot + 1);
+            int length = lengthOf(word);
+            int index = indexOf(address, length, value);
+            if (index >= 0) {
+                return false;
+            }
+            int insertAt = -index - 1;
+            int sizeClass = sizeClassOf(word);
+            if (sizeClass != 0 && length < 1 << sizeClass) {
+                move(address, insertAt, address, insertAt + 1, length - insertAt);
+                segment(address).put(offset(address) + insertAt, value);
+                chunk.put(slot + 1, slotWord(sizeClass, length + 1));
+                return true;
+            }
+            int grownClass = sizeClass == 0 ? minSizeClass : checkSizeClass(ownerId, sizeClass + 1);
+            long grown = allocate(grownClass);
+            move(address, 0, grown, 0, insertAt);
+            segment(grown).put(offset(grown) + insertAt, value);
+            move(address, insertAt, grown, insertAt + 1, length - insertAt);
+            chunk.put(slot, grown);
+            chunk.put(slot + 1, slotWord(grownClass, length + 1));
+            if (sizeClass != 0) {
+                release(address, sizeClass);
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(long ownerId, long value) {
+        StampedLock lock = lockOf(ownerId);
+        long stamp = lock.writeLock();
+        try {
+            LongBuffer chunk = indexChunkFor(ownerId);
+            int slot = slotOf(ownerId);
+            long address = chunk.get(slot);
+            long word = chunk.get(slot + 1);
+            int length = lengthOf(word);
+            int index = indexOf(address, length, value);
+            if (index < 0) {
+                return false;
+            }
+            int sizeClass = sizeClassOf(word);
+            // Блок уменьшается только при заполнении меньше четверти, чтобы добавление и удаление
+            // на границе класса не переносили список туда и обратно
+            if (sizeClass > minSizeClass && length - 1 < 1 << (sizeClass - 2)) {
+                long shrunk = allocate(sizeClass - 1);
+                move(address, 0, shrunk, 0, index);
+                move(address, index + 1, shrunk, index, length - index - 1);
+                chunk.put(slot, shrunk);
+                chunk.put(slot + 1, slotWord(sizeClass - 1, length - 1));
+                release(address, sizeClass);
+            } else {
+                move(address, index + 1, address, index, length - index - 1);
+                chunk.put(slot + 1, slotWord(sizeClass, length - 1));
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean applyChanges(long ownerId, SortedLongSet added, SortedLongSet removed) {
+        StampedLock lock = lockOf(ownerId);
+        long stamp = lock.writeLock();
+        try {
+            LongBuffer chunk = indexChunkFor(ownerId);
+            int slot = slotOf(ownerId);
+            SortedLongSet current = SortedLongSet.ofSorted(copy(chunk.get(slot), lengthOf(chunk.get(slot + 1))));
+            SortedLongSet updated = current.withChanges(added, removed);
+            if (updated == current) {
+                return false;
+            }
+            replace(ownerId, chunk, slot, updated.toLongArray());
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Память вне кучи, полученная у JVM: сегменты и фрагменты индекса.
+     */
+    public long allocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * Память занятых блоков, включая незаполненный хвост каждого блока.
+     */
+    public long usedBytes() {
+        return usedBytes.get();
+    }
+
+    // Вызывается под блокировкой владельца
+    private void replace(long ownerId, LongBuffer chunk, int slot, long[] values) {
+        long address = chunk.get(slot);
+        int sizeClass = sizeClassOf(chunk.get(slot + 1));
+        if (sizeClass == 0 && values.length == 0) {
+            return;
+        }
+        long capacity = sizeClass == 0 ? 0 : 1L << sizeClass;
+        if (values.length <= capacity && (sizeClass == minSizeClass || values.length >= capacity / 4)) {
+            segment(address).put(offset(address), values);
+            chunk.put(slot + 1, slotWord(sizeClass, values.length));
+            return;
+        }
+        int fittingClass = Math.max(minSizeClass, 64 - Long.numberOfLeadingZeros(values.length - 1L));
+        long fitting = allocate(checkSizeClass(ownerId, fittingClass));
+        segment(fitting).put(offset(fitting), values);
+        chunk.put(slot, fitting);
+        chunk.put(slot + 1, slotWord(fittingClass, values.length));
+        if (sizeClass != 0) {
+            release(address, sizeClass);
+        }
+    }
+
+    private int checkSizeClass(long ownerId, int sizeClass) {
+        if (sizeClass > segmentShift) {
+            throw new IllegalStateException("Список связей " + ownerId + " не помещается в сегмент: "
+                    + (1L << sizeClass) + " значений");
+        }
+        return sizeClass;
+    }
+
+    private long allocate(int sizeClass) {
+        allocationLock.lock();
+        try {
+            long address = freeBlocks[sizeClass];
+            if (address != NO_BLOCK) {
+                freeBlocks[sizeClass] = segment(address).get(offset(address));
+            } else {
+                long blockSize = 1L << sizeClass;
+                if (nextAddress + blockSize > segmentEnd) {
+                    releaseTail();
+                    addSegment();
+                }
+                address = nextAddress;
+                nextAddress += blockSize;
+            }
+            usedBytes.addAndGet(8L << sizeClass);
+            return address;
+        } finally {
+            allocationLock.unlock();
+        }
+    }
+
+    private void release(long address, int sizeClass) {
+        allocationLock.lock();
+        try {
+            pushFree(address, sizeClass);
+            usedBytes.addAndGet(-(8L << sizeClass));
+        } finally {
+            allocationLock.unlock();
+        }
+    }
+
+    // Остаток сегмента кратен наименьшему блоку, поэтому раскладывается на свободные блоки без потерь
+    private void releaseTail() {
+        for (int sizeClass = segmentShift; sizeClass >= minSizeClass; sizeClass--) {
+            while (segmentEnd - nextAddress >= 1L << sizeClass) {
+                pushFree(nextAddress, sizeClass);
+                nextAddress += 1L << sizeClass;
+            }
+        }
+    }
+
+    private void pushFree(long address, int sizeClass) {
+        segment(address).put(offset(address), freeBlocks[sizeClass]);
+        freeBlocks[sizeClass] = address;
+    }
+
+    private void addSegment() {
+        long segmentSize = 8L << segmentShift;
+        LongBuffer segment = reserve(segmentSize);
+        LongBuffer[] current = segments;
+        LongBuffer[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = segment;
+        segments = grown;
+        nextAddress = (long) current.length << segmentShift;
+        segmentEnd = nextAddress + (1L << segmentShift);
+    }
+
+    private LongBuffer reserve(long bytes) {
+        if (allocatedBytes.get() + bytes > maxSize) {
+            throw new IllegalStateException("Память вне кучи для связей исчерпана: выделено "
+                    + allocatedBytes.get() + " из " + maxSize + " байт");
+        }
+        LongBuffer buffer = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder()).asLongBuffer();
+        allocatedBytes.addAndGet(bytes);
+        return buffer;
+    }
+
+    private LongBuffer indexChunkFor(long ownerId) {
+        LongBuffer chunk = indexChunkOf(ownerId);
+        if (chunk != null) {
+            return chunk;
+        }
+        long chunkIndex = ownerId >>> INDEX_CHUNK_BITS;
+        if (ownerId < 0 || chunkIndex >= MAX_INDEX_CHUNKS) {
+            throw new IllegalArgumentException("ID вне допустимого диапазона: " + ownerId);
+        }
+        allocationLock.lock();
+        try {
+            LongBuffer[] current = indexChunks;
+            if (chunkIndex < current.length && current[(int) chunkIndex] != null) {
+                return current[(int) chunkIndex];
+            }
+            int length = chunkIndex < current.length ? current.length
+                    : (int) Math.min(MAX_INDEX_CHUNKS, Math.max(chunkIndex + 1, current.length * 2L));
+            LongBuffer[] grown = Arrays.copyOf(current, length);
+            chunk = reserve(8L * INDEX_CHUNK_LONGS);
+            grown[(int) chunkIndex] = chunk;
+            indexChunks = grown;
+            return chunk;
+        } finally {
+            allocationLock.unlock();
+        }
+    }
+
+    private LongBuffer indexChunkOf(long ownerId) {
+        long chunkIndex = ownerId >>> INDEX_CHUNK_BITS;
+        LongBuffer[] current = indexChunks;
+        return chunkIndex < current.length ? current[(int) chunkIndex] : null;
+    }
+
+    private long slotAddress(long ownerId) {
+        LongBuffer chunk = indexChunkOf(ownerId);
+        return chunk == null ? 0 : chunk.get(slotOf(ownerId));
+    }
+
+    private long slotWord(long ownerId) {
+        LongBuffer chunk = indexChunkOf(ownerId);
+        return chunk == null ? 0 : chunk.get(slotOf(ownerId) + 1);
+    }
+
+    private int indexOf(long address, int length, long value) {
+        if (length == 0) {
+            return -1;
+        }
+        LongBuffer segment = segment(address);
+        int base = offset(address);
+        int low = 0;
+        int high = length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long current = segment.get(base + middle);
+            if (current < value) {
+                low = middle + 1;
+            } else if (current > value) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private long[] copy(long address, int length) {
+        long[] values = new long[length];
+        if (length > 0) {
+            segment(address).get(offset(address), values);
+        }
+        return values;
+    }
+
+    // Перекрывающиеся диапазоны одного блока копируются как через промежуточный буфер
+    private void move(long from, int fromIndex, long to, int toIndex, int count) {
+        if (count > 0) {
+            segment(to).put(offset(to) + toIndex, segment(from), offset(from) + fromIndex, count);
+        }
+    }
+
+    private LongBuffer segment(long address) {
+        return segments[(int) (address >>> segmentShift)];
+    }
+
+    private int offset(long address) {
+        return (int) (address & segmentMask);
+    }
+
+    private StampedLock lockOf(long ownerId) {
+        long hash = ownerId * 0x9E3779B97F4A7C15L;
+        return locks[(int) (hash ^ (hash >>> 32)) & (STRIPES - 1)];
+    }
+
+    private static int slotOf(long ownerId) {
+        return (int) (ownerId & INDEX_CHUNK_MASK) << 1;
+    }
+
+    // Класс размера 0 означает, что блока нет: наименьший класс не меньше 1
+    private static long slotWord(int sizeClass, int length) {
+        return (long) sizeClass << 32 | length;
+    }
+
+    private static int sizeClassOf(long word) {
+        return (int) (word >>> 32);
+    }
+
+    private static int lengthOf(long word) {
+        return (int) word;
+    }
+
+    /**
+     * Живое представление списка владельца: читает текущее состояние хранилища. Изменение возвращает
+     * новое представление, чтобы сущность по смене ссылки видела, что множество изменилось.
+     */
+    private final class Edges implements LongSet {
+        private final long ownerId;
+
+        private Edges(long ownerId) {
+            this.ownerId = ownerId;
+        }
+
+        private OffHeapEdgeStore store() {
+            return OffHeapEdgeStore.this;
+        }
+
+        @Override
+        public int size() {
+            return OffHeapEdgeStore.this.size(ownerId);
+        }
+
+        @Override
+        public boolean contains(long value) {
+            return OffHeapEdgeStore.this.contains(ownerId, value);
+        }
+
+        @Override
+        public LongSet with(long value) {
+            return add(ownerId, value) ? new Edges(ownerId) : this;
+        }
+
+        @Override
+        public LongSet without(long value) {
+            return remove(ownerId, value) ? new Edges(ownerId) : this;
+        }
+
+        @Override
+        public LongSet withChanges(SortedLongSet added, SortedLongSet removed) {
+            return applyChanges(ownerId, added, removed) ? new Edges(ownerId) : this;
+        }
+
+        @Override
+        public SortedLongSet snapshot() {
+            return get(ownerId);
+        }
+
+        @Override
+        public String toString() {
+            return snapshot().toString();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+public class StripedLock {
+    private static final int MIN_STRIPES = 64;
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLock() {
+        this(Runtime.getRuntime().availableProcessors() * 16);
+    }
+
+    public StripedLock(int stripes) {
+        int size = Integer.highestOneBit(Math.max(stripes, MIN_STRIPES) - 1) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public <T> T withLock(long id, Supplier<T> action) {
+        ReentrantLock lock = locks[indexOf(id)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public <T> T withLocks(long firstId, long secondId, Supplier<T> action) {
+        int first = indexOf(firstId);
+        int second = indexOf(secondId);
+        if (first == second) {
+            return withLock(firstId, action);
+        }
+        ReentrantLock outer = locks[Math.min(first, second)];
+        ReentrantLock inner = locks[Math.max(first, second)];
+        outer.lock();
+        try {
+            inner.lock();
+            try {
+                return action.get();
+            } finally {
+                inner.unlock();
+            }
+        } finally {
+            outer.unlock();
+        }
+    }
+
+    private int indexOf(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
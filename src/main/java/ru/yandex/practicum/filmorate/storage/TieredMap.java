@@ -0,0 +1,174 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Сущности по ID в двух уровнях: изменяемые объекты в памяти и необязательный неизменяемый архив.
+ * Точечное чтение переносит сущность из архива в память, обход отдаёт архивные строки без кэширования.
+ */
+public class TieredMap<T> {
+    private final ChunkedIdMap<T> hot = new ChunkedIdMap<>();
+    private final Consumer<T> onMaterialized;
+    // Значения в памяти, которых нет в архиве: вместе с размером архива дают общее число сущностей
+    private final AtomicLong hotOnlyCount = new AtomicLong();
+    private volatile EntityArchive<T> archive;
+
+    public TieredMap() {
+        this(value -> {
+        });
+    }
+
+    public TieredMap(Consumer<T> onMaterialized) {
+        this.onMaterialized = onMaterialized;
+    }
+
+    public void attach(EntityArchive<T> archive) {
+        this.archive = archive;
+    }
+
+    public T get(long id) {
+        T value = hot.get(id);
+        EntityArchive<T> current = archive;
+        if (value != null || current == null) {
+            return value;
+        }
+        int row = current.rowOf(id);
+        if (row < 0) {
+            return null;
+        }
+        T materialized = current.materialize(row);
+        T existing = hot.putIfAbsent(id, materialized);
+        if (existing != null) {
+            return existing;
+        }
+        onMaterialized.accept(materialized);
+        return materialized;
+    }
+
+    /**
+     * Атомарно заменяет значение по ID; архивное значение предварительно переносится в память.
+     * Функция получает null, если значения нет ни в памяти, ни в архиве.
+     */
+    public T compute(long id, UnaryOperator<T> update) {
+        get(id);
+        while (true) {
+            T value = hot.get(id);
+            T updated = update.apply(value);
+            if (hot.replace(id, value, updated)) {
+                if (value == null && updated != null) {
+                    hotOnlyCount.incrementAndGet();
+                }
+                return updated;
+            }
+        }
+    }
+
+    public void put(long id, T value) {
+        if (hot.put(id, value) == null && !isArchived(id)) {
+            hotOnlyCount.incrementAndGet();
+        }
+    }
+
+    public T putIfAbsent(long id, T value) {
+        T existing = get(id);
+        if (existing != null) {
+            return existing;
+        }
+        existing = hot.putIfAbsent(id, value);
+        if (existing == null) {
+            hotOnlyCount.incrementAndGet();
+        }
+        return existing;
+    }
+
+    public long size() {
+        EntityArchive<T> current = archive;
+        return (current == null ? 0 : current.size()) + hotOnlyCount.get();
+    }
+
+    public Stream<T> stream(long afterId) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(afterId),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    public Collection<T> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<T> iterator() {
+                return TieredMap.this.iterator(Long.MIN_VALUE);
+            }
+
+            @Override
+            public int size() {
+                return (int) Math.min(TieredMap.this.size(), Integer.MAX_VALUE);
+            }
+        };
+    }
+
+    private Iterator<T> iterator(long afterId) {
+        EntityArchive<T> current = archive;
+        return new Iterator<>() {
+            private int row = current == null ? 0 : current.firstRowAfter(afterId);
+            private long nextHotId = afterId;
+            private T nextHot = advanceHot();
+
+            @Override
+            public boolean hasNext() {
+                return nextHot != null || (current != null && row < current.size());
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (current == null || row >= current.size()) {
+                    return takeHot();
+                }
+                long archivedId = current.idAt(row);
+                if (nextHot != null && nextHotId <= archivedId) {
+                    if (nextHotId == archivedId) {
+                        row++;
+                    }
+                    return takeHot();
+                }
+                return current.materialize(row++);
+            }
+
+            private T takeHot() {
+                T value = nextHot;
+                nextHot = advanceHot();
+                return value;
+            }
+
+            // Значение читается сразу вместе с ID: ячейку могли очистить между поиском и чтением
+            private T advanceHot() {
+                while (true) {
+                    nextHotId = hot.higherId(nextHotId);
+                    if (nextHotId < 0) {
+                        return null;
+                    }
+                    T value = hot.get(nextHotId);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+            }
+        };
+    }
+
+    private boolean isArchived(long id) {
+        EntityArchive<T> current = archive;
+        return current != null && current.rowOf(id) >= 0;
+    }
+}
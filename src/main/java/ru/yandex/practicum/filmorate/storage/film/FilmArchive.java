@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.EntityArchive;
+
+public interface FilmArchive extends EntityArchive<Film> {
+
+    int likesCount(int row);
+
+    EntityArchive<LikedFilms> likedFilms();
+}
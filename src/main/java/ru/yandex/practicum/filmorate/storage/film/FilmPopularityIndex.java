@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.storage.ChunkedIdMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class FilmPopularityIndex {
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    // Текущая позиция фильма в рейтинге по ID: без упакованных ключа и счётчика на каждый фильм
+    private final ChunkedIdMap<Entry> currentEntries = new ChunkedIdMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong totalLikes = new AtomicLong();
+
+    // Вызовы для одного фильма должны быть упорядочены вызывающей стороной (блокировкой фильма).
+    // Новая позиция добавляется раньше, чем удаляется старая. top() сверяет встреченные записи с текущими
+    // и отсекает уже выданные фильмы, поэтому конкурентный читатель не видит фильм дважды. Фильм,
+    // переместившийся за время обхода один раз, выдаётся ровно один раз, возможно на прежней позиции;
+    // пропасть он может, только если переместился несколько раз подряд.
+    public void put(long filmId, int likes) {
+        Entry previous = currentEntries.get(filmId);
+        if (previous != null && previous.likes() == likes) {
+            return;
+        }
+        Entry entry = new Entry(likes, filmId);
+        ranking.add(entry);
+        currentEntries.put(filmId, entry);
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        totalLikes.addAndGet(likes - (previous == null ? 0 : previous.likes()));
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+    }
+
+    public void remove(long filmId) {
+        Entry previous = currentEntries.put(filmId, null);
+        if (previous != null) {
+            size.decrementAndGet();
+            totalLikes.addAndGet(-previous.likes());
+            ranking.remove(previous);
+        }
+    }
+
+    public List<Long> top(int count) {
+        List<Long> filmIds = new ArrayList<>(Math.min(count, size.get()));
+        Set<Long> seen = new HashSet<>();
+        Iterator<Entry> iterator = ranking.iterator();
+        while (filmIds.size() < count && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            long filmId = entry.filmId();
+            Entry current = currentEntries.get(filmId);
+            if (current == null) {
+                continue;
+            }
+            boolean emit;
+            if (current.likes() == entry.likes()) {
+                emit = seen.add(filmId);
+            } else {
+                // Устаревшая запись выдаётся вместо текущей, если текущая стоит выше: итератор мог пройти её
+                // место раньше, чем она появилась. Если текущая ниже, итератор до неё ещё дойдёт.
+                emit = ORDER.compare(current, entry) < 0 && seen.add(filmId);
+            }
+            if (emit) {
+                filmIds.add(filmId);
+            }
+        }
+        return filmIds;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public long totalLikes() {
+        return totalLikes.get();
+    }
+
+    private record Entry(int likes, long filmId) {
+    }
+}
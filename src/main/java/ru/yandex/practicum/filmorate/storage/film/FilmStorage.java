@@ -1,16 +1,67 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.LikeChanges;
+import ru.yandex.practicum.filmorate.storage.LookupResult;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
+/**
+ * Фильмы из чтений ниже могут нести только число лайков, без самих лайков (так читает хранилище в БД);
+ * лайки целиком отдаёт {@link #stream()}, отдельные проверяются через {@link #hasLike}.
+ */
 public interface FilmStorage {
 
     Collection<Film> findAll();
 
+    List<Film> findPage(long afterId, int limit);
+
+    /**
+     * Все фильмы по возрастанию ID вместе с лайками — для построения моделей и снимков.
+     */
+    Stream<Film> stream();
+
     Film add(Film film);
 
+    /**
+     * Добавляет фильмы пакетом и назначает им ID; возвращает их в том же порядке.
+     */
+    List<Film> addAll(List<Film> films);
+
     Film update(Film film);
 
     Film getById(Long id);
+
+    LookupResult<Film> getByIds(Collection<Long> ids);
+
+    boolean hasLike(Long filmId, Long userId);
+
+    boolean addLike(Long filmId, Long userId);
+
+    boolean removeLike(Long filmId, Long userId);
+
+    /**
+     * Применяет пакет лайков одного фильма: пользователи из likedBy ставят лайк, из unlikedBy — снимают.
+     * Уже применённые изменения пропускаются и не входят в возвращаемые счётчики.
+     */
+    LikeChanges applyLikeChanges(Long filmId, Collection<Long> likedBy, Collection<Long> unlikedBy);
+
+    List<Film> getPopular(int count);
+
+    /**
+     * Возвращает ID фильмов, которые лайкнул пользователь, по возрастанию, начиная после afterFilmId.
+     */
+    List<Long> findLikedFilmIds(long userId, long afterFilmId, int limit);
+
+    /**
+     * Возвращает те ID из filmIds, которые лайкнул пользователь.
+     */
+    Set<Long> findLikedFilmIds(long userId, Collection<Long> filmIds);
+
+    long count();
+
+    long likesCount();
 }
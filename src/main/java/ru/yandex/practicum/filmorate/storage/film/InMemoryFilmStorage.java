@@ -1,51 +1,337 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.EdgeStore;
+import ru.yandex.practicum.filmorate.storage.LikeChanges;
+import ru.yandex.practicum.filmorate.storage.LookupResult;
+import ru.yandex.practicum.filmorate.storage.StripedLock;
+import ru.yandex.practicum.filmorate.storage.TieredMap;
+import ru.yandex.practicum.filmorate.storage.id.IdGenerator;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdGenerator;
+import ru.yandex.practicum.filmorate.storage.persistence.MutationLog;
+import ru.yandex.practicum.filmorate.util.LongSet;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
+@Timed(value = "filmorate.storage", histogram = true)
 @Component
+@Profile("!jdbc")
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Long, Film> films = new HashMap<>();
+    private final TieredMap<Film> films = new TieredMap<>();
+    private final TieredMap<LikedFilms> likedFilmsByUser = new TieredMap<>();
+    private final FilmPopularityIndex popularityIndex = new FilmPopularityIndex();
+    private final StripedLock locks = new StripedLock();
+    private final IdGenerator idGenerator;
+    private final MutationLog mutationLog;
+    private final EdgeStore likeEdges;
+    private final EdgeStore likedFilmEdges;
+
+    public InMemoryFilmStorage() {
+        this(new SequenceIdGenerator(), MutationLog.NOOP);
+    }
+
+    public InMemoryFilmStorage(IdGenerator idGenerator, MutationLog mutationLog) {
+        this(idGenerator, mutationLog, EdgeStore.HEAP, EdgeStore.HEAP);
+    }
+
+    @Autowired
+    public InMemoryFilmStorage(@Qualifier("filmIdGenerator") IdGenerator idGenerator, MutationLog mutationLog,
+                               @Qualifier("likeEdgeStore") EdgeStore likeEdges,
+                               @Qualifier("likedFilmEdgeStore") EdgeStore likedFilmEdges) {
+        this.idGenerator = idGenerator;
+        this.mutationLog = mutationLog;
+        this.likeEdges = likeEdges;
+        this.likedFilmEdges = likedFilmEdges;
+    }
 
     @Override
     public Collection<Film> findAll() {
-        return new ArrayList<>(films.values());
+        return Collections.unmodifiableCollection(films.values());
+    }
+
+    @Override
+    public List<Film> findPage(long afterId, int limit) {
+        return films.stream(afterId)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Stream<Film> stream() {
+        return films.stream(Long.MIN_VALUE);
     }
 
     @Override
     public Film getById(Long id) {
-        if (id <= 0 || !films.containsKey(id)) {
+        Film film = films.get(id);
+        if (film == null) {
             throw new NotFoundException("Фильм с ID " + id + " не найден");
         }
-        return films.get(id);
+        return film;
+    }
+
+    @Override
+    public LookupResult<Film> getByIds(Collection<Long> ids) {
+        List<Film> found = new ArrayList<>(ids.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            Film film = films.get(id);
+            if (film != null) {
+                found.add(film);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new LookupResult<>(found, missingIds);
     }
 
     @Override
     public Film add(Film film) {
-        long newId = getNextId();
+        long newId = idGenerator.nextId();
         film.setId(newId);
-        films.put(newId, film);
+        long position = locks.withLock(newId, () -> {
+            films.put(newId, film);
+            popularityIndex.put(newId, film.getLikesCount());
+            return mutationLog.filmSaved(film);
+        });
+        mutationLog.awaitDurable(position);
         return film;
     }
 
+    // Ожидание записи журнала одно на пакет, а не на каждый фильм
+    @Override
+    public List<Film> addAll(List<Film> newFilms) {
+        long lastPosition = MutationLog.NOT_LOGGED;
+        for (Film film : newFilms) {
+            long newId = idGenerator.nextId();
+            film.setId(newId);
+            lastPosition = Math.max(lastPosition, locks.withLock(newId, () -> {
+                films.put(newId, film);
+                popularityIndex.put(newId, film.getLikesCount());
+                return mutationLog.filmSaved(film);
+            }));
+        }
+        mutationLog.awaitDurable(lastPosition);
+        return newFilms;
+    }
+
     @Override
     public Film update(Film film) {
-        films.put(film.getId(), film);
-        return film;
+        Film existingFilm = getById(film.getId());
+        long position = locks.withLock(film.getId(), () -> {
+            copyFields(film, existingFilm);
+            return mutationLog.filmSaved(existingFilm);
+        });
+        mutationLog.awaitDurable(position);
+        return existingFilm;
+    }
+
+    @Override
+    public boolean hasLike(Long filmId, Long userId) {
+        return getById(filmId).hasLike(userId);
+    }
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) {
+        Film film = getById(filmId);
+        long position = locks.withLock(filmId, () -> {
+            adoptLikes(film);
+            if (!film.addLike(userId)) {
+                return MutationLog.NO_CHANGE;
+            }
+            indexLike(filmId, userId, true);
+            popularityIndex.put(filmId, film.getLikesCount());
+            return mutationLog.likeChanged(filmId, userId, true);
+        });
+        mutationLog.awaitDurable(position);
+        return position != MutationLog.NO_CHANGE;
+    }
+
+    @Override
+    public boolean removeLike(Long filmId, Long userId) {
+        Film film = getById(filmId);
+        long position = locks.withLock(filmId, () -> {
+            adoptLikes(film);
+            if (!film.removeLike(userId)) {
+                return MutationLog.NO_CHANGE;
+            }
+            indexLike(filmId, userId, false);
+            popularityIndex.put(filmId, film.getLikesCount());
+            return mutationLog.likeChanged(filmId, userId, false);
+        });
+        mutationLog.awaitDurable(position);
+        return position != MutationLog.NO_CHANGE;
+    }
+
+    @Override
+    public LikeChanges applyLikeChanges(Long filmId, Collection<Long> likedBy, Collection<Long> unlikedBy) {
+        Film film = getById(filmId);
+        int[] applied = new int[2];
+        long position = locks.withLock(filmId, () -> {
+            // Новая версия множества лайков собирается одним слиянием, а не копией на каждое событие
+            LongSet current = adoptLikes(film);
+            SortedLongSet added = SortedLongSet.of(likedBy.stream()
+                    .mapToLong(Long::longValue)
+                    .filter(userId -> !current.contains(userId))
+                    .toArray());
+            SortedLongSet removed = SortedLongSet.of(unlikedBy.stream()
+                    .mapToLong(Long::longValue)
+                    .filter(userId -> current.contains(userId) || added.contains(userId))
+                    .toArray());
+            if (added.isEmpty() && removed.isEmpty()) {
+                return MutationLog.NO_CHANGE;
+            }
+            film.setLikes(current.withChanges(added, removed));
+            long lastPosition = MutationLog.NO_CHANGE;
+            for (int i = 0; i < added.size(); i++) {
+                indexLike(filmId, added.get(i), true);
+                lastPosition = mutationLog.likeChanged(filmId, added.get(i), true);
+            }
+            for (int i = 0; i < removed.size(); i++) {
+                indexLike(filmId, removed.get(i), false);
+                lastPosition = mutationLog.likeChanged(filmId, removed.get(i), false);
+            }
+            popularityIndex.put(filmId, film.getLikesCount());
+            applied[0] = added.size();
+            applied[1] = removed.size();
+            return lastPosition;
+        });
+        mutationLog.awaitDurable(position);
+        return new LikeChanges(applied[0], applied[1], film.getLikesCount());
+    }
+
+    @Override
+    public List<Film> getPopular(int count) {
+        return getByIds(popularityIndex.top(count)).found();
+    }
+
+    @Override
+    public List<Long> findLikedFilmIds(long userId, long afterFilmId, int limit) {
+        LikedFilms likedFilms = likedFilmsByUser.get(userId);
+        if (likedFilms == null) {
+            return List.of();
+        }
+        SortedLongSet filmIds = likedFilms.filmIds().snapshot();
+        int from = filmIds.higherIndex(afterFilmId);
+        int to = (int) Math.min(filmIds.size(), (long) from + limit);
+        List<Long> page = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            page.add(filmIds.get(i));
+        }
+        return page;
+    }
+
+    @Override
+    public Set<Long> findLikedFilmIds(long userId, Collection<Long> filmIds) {
+        Set<Long> liked = new HashSet<>();
+        for (Long filmId : filmIds) {
+            Film film = films.get(filmId);
+            if (film != null && film.hasLike(userId)) {
+                liked.add(filmId);
+            }
+        }
+        return liked;
+    }
+
+    @Override
+    public long count() {
+        return films.size();
+    }
+
+    @Override
+    public long likesCount() {
+        return popularityIndex.totalLikes();
+    }
+
+    /**
+     * Число пользователей в обратном индексе лайков, включая архивных.
+     */
+    public long likedFilmsIndexSize() {
+        return likedFilmsByUser.size();
+    }
+
+    public Stream<LikedFilms> likedFilmsStream() {
+        return likedFilmsByUser.stream(Long.MIN_VALUE)
+                .filter(likedFilms -> !likedFilms.filmIds().isEmpty());
+    }
+
+    /**
+     * Подключает архив фильмов из снимка. Вызывается при старте до приёма запросов и до повтора журнала.
+     */
+    public void attach(FilmArchive archive) {
+        films.attach(archive);
+        likedFilmsByUser.attach(archive.likedFilms());
+        for (int row = 0; row < archive.size(); row++) {
+            popularityIndex.put(archive.idAt(row), archive.likesCount(row));
+        }
+        if (archive.size() > 0) {
+            idGenerator.advanceTo(archive.idAt(archive.size() - 1));
+        }
+    }
+
+    public void restore(Film film) {
+        locks.withLock(film.getId(), () -> {
+            Film existingFilm = films.putIfAbsent(film.getId(), film);
+            if (existingFilm != null) {
+                copyFields(film, existingFilm);
+            }
+            popularityIndex.put(film.getId(), films.get(film.getId()).getLikesCount());
+            return null;
+        });
+        idGenerator.advanceTo(film.getId());
+    }
+
+    public void restoreLike(long filmId, long userId, boolean liked) {
+        Film film = films.get(filmId);
+        if (film == null) {
+            return;
+        }
+        locks.withLock(filmId, () -> {
+            adoptLikes(film);
+            if (liked ? film.addLike(userId) : film.removeLike(userId)) {
+                indexLike(filmId, userId, liked);
+            }
+            popularityIndex.put(filmId, film.getLikesCount());
+            return null;
+        });
+    }
+
+    // Вызывается под блокировкой фильма; пользователь может менять лайки разных фильмов параллельно,
+    // поэтому его запись в индексе заменяется атомарно. Повтор функции при гонке безопасен:
+    // добавление и удаление одного фильма идемпотентны
+    private void indexLike(long filmId, long userId, boolean liked) {
+        likedFilmsByUser.compute(userId, current -> {
+            LongSet filmIds = likedFilmEdges.adopt(userId, current == null ? SortedLongSet.EMPTY : current.filmIds());
+            return new LikedFilms(userId, liked ? filmIds.with(filmId) : filmIds.without(filmId));
+        });
+    }
+
+    // Новые и перенесённые из архива фильмы держат лайки в куче до первого изменения
+    private LongSet adoptLikes(Film film) {
+        LongSet likes = likeEdges.adopt(film.getId(), film.likeSet());
+        if (likes != film.likeSet()) {
+            film.setLikes(likes);
+        }
+        return likes;
     }
 
-    private long getNextId() {
-        long currentMaxId = films.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0L);
-        return ++currentMaxId;
+    private static void copyFields(Film source, Film target) {
+        target.setName(source.getName());
+        target.setDescription(source.getDescription());
+        target.setReleaseDate(source.getReleaseDate());
+        target.setDuration(source.getDuration());
     }
 }
@@ -0,0 +1,294 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.LikeChanges;
+import ru.yandex.practicum.filmorate.storage.LookupResult;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Timed(value = "filmorate.storage", histogram = true)
+@Component
+@Profile("jdbc")
+public class JdbcFilmStorage implements FilmStorage {
+    private static final int BATCH_SIZE = 1000;
+    private static final String FILM_COLUMNS = "f.id, f.name, f.description, f.release_date, f.duration, f.likes_count";
+    private static final RowMapper<Film> FILM_MAPPER = (rs, rowNum) -> {
+        Film film = new Film();
+        film.setId(rs.getLong("id"));
+        film.setName(rs.getString("name"));
+        film.setDescription(rs.getString("description"));
+        Date releaseDate = rs.getDate("release_date");
+        film.setReleaseDate(releaseDate == null ? null : releaseDate.toLocalDate());
+        film.setDuration(rs.getObject("duration", Integer.class));
+        film.setLikesCount(rs.getInt("likes_count"));
+        return film;
+    };
+
+    private static final String INSERT_LIKE = "INSERT INTO likes (film_id, user_id) SELECT :filmId, :userId"
+            + " WHERE NOT EXISTS (SELECT 1 FROM likes WHERE film_id = :filmId AND user_id = :userId)";
+    private static final String DELETE_LIKE = "DELETE FROM likes WHERE film_id = :filmId AND user_id = :userId";
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcFilmStorage(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public Collection<Film> findAll() {
+        return pages(false).toList();
+    }
+
+    @Override
+    public List<Film> findPage(long afterId, int limit) {
+        return jdbc.query("SELECT " + FILM_COLUMNS + " FROM films f WHERE f.id > :afterId"
+                        + " ORDER BY f.id LIMIT :limit",
+                new MapSqlParameterSource("afterId", afterId).addValue("limit", limit), FILM_MAPPER);
+    }
+
+    @Override
+    public Stream<Film> stream() {
+        return pages(true);
+    }
+
+    @Override
+    public Film add(Film film) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.update("INSERT INTO films (name, description, release_date, duration)"
+                + " VALUES (:name, :description, :releaseDate, :duration)", filmParameters(film), keyHolder,
+                new String[]{"id"});
+        film.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
+        return film;
+    }
+
+    @Override
+    @Transactional
+    public List<Film> addAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.batchUpdate("INSERT INTO films (name, description, release_date, duration)"
+                        + " VALUES (:name, :description, :releaseDate, :duration)",
+                films.stream().map(JdbcFilmStorage::filmParameters).toArray(SqlParameterSource[]::new),
+                keyHolder, new String[]{"id"});
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+        return films;
+    }
+
+    @Override
+    public Film update(Film film) {
+        int updated = jdbc.update("UPDATE films SET name = :name, description = :description,"
+                + " release_date = :releaseDate, duration = :duration WHERE id = :id", filmParameters(film));
+        if (updated == 0) {
+            throw new NotFoundException("Фильм с ID " + film.getId() + " не найден");
+        }
+        return getById(film.getId());
+    }
+
+    @Override
+    public Film getById(Long id) {
+        List<Film> films = jdbc.query("SELECT " + FILM_COLUMNS + " FROM films f WHERE f.id = :id",
+                new MapSqlParameterSource("id", id), FILM_MAPPER);
+        if (films.isEmpty()) {
+            throw new NotFoundException("Фильм с ID " + id + " не найден");
+        }
+        return films.getFirst();
+    }
+
+    @Override
+    public LookupResult<Film> getByIds(Collection<Long> ids) {
+        Map<Long, Film> filmsById = new HashMap<>();
+        List<Long> idList = List.copyOf(ids);
+        for (int from = 0; from < idList.size(); from += BATCH_SIZE) {
+            List<Long> batch = idList.subList(from, Math.min(from + BATCH_SIZE, idList.size()));
+            jdbc.query("SELECT " + FILM_COLUMNS + " FROM films f WHERE f.id IN (:ids)",
+                    new MapSqlParameterSource("ids", batch), FILM_MAPPER)
+                    .forEach(film -> filmsById.put(film.getId(), film));
+        }
+        List<Film> found = new ArrayList<>(ids.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            Film film = filmsById.get(id);
+            if (film != null) {
+                found.add(film);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new LookupResult<>(found, missingIds);
+    }
+
+    @Override
+    @Transactional
+    public boolean addLike(Long filmId, Long userId) {
+        boolean added = jdbc.update(INSERT_LIKE, likeParameters(filmId, userId)) > 0;
+        if (added) {
+            updateLikesCount(filmId, 1);
+        }
+        return added;
+    }
+
+    @Override
+    @Transactional
+    public boolean removeLike(Long filmId, Long userId) {
+        boolean removed = jdbc.update(DELETE_LIKE, likeParameters(filmId, userId)) > 0;
+        if (removed) {
+            updateLikesCount(filmId, -1);
+        }
+        return removed;
+    }
+
+    @Override
+    @Transactional
+    public LikeChanges applyLikeChanges(Long filmId, Collection<Long> likedBy, Collection<Long> unlikedBy) {
+        int added = 0;
+        int removed = 0;
+        boolean exact = true;
+        if (!likedBy.isEmpty()) {
+            for (int updated : jdbc.batchUpdate(INSERT_LIKE, likeParameters(filmId, likedBy))) {
+                exact &= updated >= 0;
+                added += Math.max(updated, 0);
+            }
+        }
+        if (!unlikedBy.isEmpty()) {
+            for (int updated : jdbc.batchUpdate(DELETE_LIKE, likeParameters(filmId, unlikedBy))) {
+                exact &= updated >= 0;
+                removed += Math.max(updated, 0);
+            }
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource("filmId", filmId);
+        if (exact) {
+            if (added != removed) {
+                updateLikesCount(filmId, added - removed);
+            }
+            return new LikeChanges(added, removed, likesCount(parameters));
+        }
+        // Драйвер не сообщил число изменённых строк: пересчитываем по первичному ключу лайков фильма,
+        // а изменение определяем по разнице счётчика до и после
+        int before = likesCount(parameters);
+        jdbc.update("UPDATE films SET likes_count = (SELECT COUNT(*) FROM likes WHERE film_id = :filmId)"
+                + " WHERE id = :filmId", parameters);
+        int after = likesCount(parameters);
+        return new LikeChanges(Math.max(after - before, 0), Math.max(before - after, 0), after);
+    }
+
+    @Override
+    public List<Film> getPopular(int count) {
+        return jdbc.query("SELECT " + FILM_COLUMNS + " FROM films f ORDER BY f.likes_count DESC, f.id LIMIT :count",
+                new MapSqlParameterSource("count", count), FILM_MAPPER);
+    }
+
+    @Override
+    public boolean hasLike(Long filmId, Long userId) {
+        return !jdbc.queryForList("SELECT 1 FROM likes WHERE film_id = :filmId AND user_id = :userId",
+                likeParameters(filmId, userId), Integer.class).isEmpty();
+    }
+
+    @Override
+    public Set<Long> findLikedFilmIds(long userId, Collection<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbc.queryForList("SELECT film_id FROM likes WHERE user_id = :userId"
+                        + " AND film_id IN (:filmIds)",
+                new MapSqlParameterSource("userId", userId).addValue("filmIds", filmIds), Long.class));
+    }
+
+    @Override
+    public List<Long> findLikedFilmIds(long userId, long afterFilmId, int limit) {
+        return jdbc.queryForList("SELECT film_id FROM likes WHERE user_id = :userId AND film_id > :afterFilmId"
+                        + " ORDER BY film_id LIMIT :limit",
+                new MapSqlParameterSource("userId", userId).addValue("afterFilmId", afterFilmId)
+                        .addValue("limit", limit), Long.class);
+    }
+
+    @Override
+    public long count() {
+        return jdbc.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM films", Long.class);
+    }
+
+    @Override
+    public long likesCount() {
+        return jdbc.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM likes", Long.class);
+    }
+
+    // Выгрузка идёт страницами, чтобы не держать соединение из пула на всё время записи ответа
+    private Stream<Film> pages(boolean withLikes) {
+        return Stream.iterate(page(0, withLikes), page -> !page.isEmpty(),
+                        page -> page.size() < BATCH_SIZE ? List.of() : page(page.getLast().getId(), withLikes))
+                .flatMap(List::stream);
+    }
+
+    private List<Film> page(long afterId, boolean withLikes) {
+        List<Film> films = findPage(afterId, BATCH_SIZE);
+        return withLikes ? withLikes(films) : films;
+    }
+
+    private List<Film> withLikes(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        Map<Long, List<Long>> likedBy = new HashMap<>();
+        films.forEach(film -> likedBy.put(film.getId(), new ArrayList<>()));
+        jdbc.query("SELECT film_id, user_id FROM likes WHERE film_id IN (:ids)",
+                new MapSqlParameterSource("ids", likedBy.keySet()),
+                rs -> {
+                    likedBy.get(rs.getLong("film_id")).add(rs.getLong("user_id"));
+                });
+        films.forEach(film -> film.setLikes(SortedLongSet.of(
+                likedBy.get(film.getId()).stream().mapToLong(Long::longValue).toArray())));
+        return films;
+    }
+
+    private int likesCount(MapSqlParameterSource filmParameters) {
+        return jdbc.queryForObject("SELECT likes_count FROM films WHERE id = :filmId", filmParameters, Integer.class);
+    }
+
+    private void updateLikesCount(Long filmId, int delta) {
+        jdbc.update("UPDATE films SET likes_count = likes_count + :delta WHERE id = :filmId",
+                new MapSqlParameterSource("filmId", filmId).addValue("delta", delta));
+    }
+
+    private static MapSqlParameterSource filmParameters(Film film) {
+        return new MapSqlParameterSource("id", film.getId())
+                .addValue("name", film.getName())
+                .addValue("description", film.getDescription())
+                .addValue("releaseDate", film.getReleaseDate())
+                .addValue("duration", film.getDuration());
+    }
+
+    private static MapSqlParameterSource likeParameters(Long filmId, Long userId) {
+        return new MapSqlParameterSource("filmId", filmId).addValue("userId", userId);
+    }
+
+    private static SqlParameterSource[] likeParameters(Long filmId, Collection<Long> userIds) {
+        return userIds.stream()
+                .map(userId -> likeParameters(filmId, userId))
+                .toArray(SqlParameterSource[]::new);
+    }
+}
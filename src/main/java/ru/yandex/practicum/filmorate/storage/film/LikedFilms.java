@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+/**
+ * Запись обратного индекса лайков: фильмы, которые лайкнул пользователь.
+ */
+public record LikedFilms(long userId, LongSet filmIds) {
+}
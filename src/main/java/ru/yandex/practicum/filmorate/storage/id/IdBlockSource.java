@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.storage.id;
+
+public interface IdBlockSource {
+
+    /**
+     * Резервирует диапазон [first, first + size) и возвращает его первый ID.
+     */
+    long reserve(int size);
+}
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.storage.id;
+
+public interface IdGenerator {
+
+    long nextId();
+
+    void advanceTo(long usedId);
+}
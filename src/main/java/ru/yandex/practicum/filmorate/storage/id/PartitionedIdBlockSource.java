@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.storage.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PartitionedIdBlockSource implements IdBlockSource {
+    private final int node;
+    private final int nodes;
+    private final AtomicLong blocks = new AtomicLong();
+
+    public PartitionedIdBlockSource(int node, int nodes) {
+        if (nodes <= 0 || node < 0 || node >= nodes) {
+            throw new IllegalArgumentException("Некорректный номер узла " + node + " из " + nodes);
+        }
+        this.node = node;
+        this.nodes = nodes;
+    }
+
+    @Override
+    public long reserve(int size) {
+        long block = blocks.getAndIncrement() * nodes + node;
+        return block * size + 1;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class RangeIdGenerator implements IdGenerator {
+    private final IdBlockSource source;
+    private final int blockSize;
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private volatile Range range;
+
+    public RangeIdGenerator(IdBlockSource source, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Размер блока ID должен быть положительным: " + blockSize);
+        }
+        this.source = source;
+        this.blockSize = blockSize;
+        this.range = reserve();
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            Range current = range;
+            long id = current.next.getAndIncrement();
+            if (id < current.end) {
+                return id;
+            }
+            refillLock.lock();
+            try {
+                if (range == current) {
+                    range = reserve();
+                }
+            } finally {
+                refillLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void advanceTo(long usedId) {
+        refillLock.lock();
+        try {
+            while (range.end <= usedId) {
+                range = reserve();
+            }
+            range.next.accumulateAndGet(usedId + 1, Math::max);
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private Range reserve() {
+        long first = source.reserve(blockSize);
+        return new Range(new AtomicLong(first), first + blockSize);
+    }
+
+    private record Range(AtomicLong next, long end) {
+    }
+}
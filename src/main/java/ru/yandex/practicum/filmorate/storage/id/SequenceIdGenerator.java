@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.storage.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SequenceIdGenerator implements IdGenerator {
+    private final AtomicLong lastId;
+
+    public SequenceIdGenerator() {
+        this(0L);
+    }
+
+    public SequenceIdGenerator(long lastId) {
+        this.lastId = new AtomicLong(lastId);
+    }
+
+    @Override
+    public long nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    @Override
+    public void advanceTo(long usedId) {
+        lastId.accumulateAndGet(usedId, Math::max);
+    }
+}
@@ -0,0 +1,293 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EntityArchive;
+import ru.yandex.practicum.filmorate.storage.film.FilmArchive;
+import ru.yandex.practicum.filmorate.storage.film.LikedFilms;
+import ru.yandex.practicum.filmorate.storage.user.UserArchive;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Колоночный снимок, открываемый через отображение файла в память. Заголовок хранит счётчики
+ * и смещения колонок, сами колонки читаются только при обращении к строке, поэтому
+ * открытие снимка не зависит от объёма данных.
+ * <p>
+ * Строки отсортированы по ID. Лайки и друзья лежат подряд в общих колонках, границы списков
+ * задаются колонками *_END. Строковые поля ссылаются на смещения в колонке STRINGS ([int длина][UTF-8]),
+ * -1 означает null. Индекс email содержит (hash email в нижнем регистре &lt;&lt; 32 | строка), отсортированные по возрастанию.
+ * Колонки LIKER_* хранят обратный индекс лайков: пользователей по возрастанию ID и списки их фильмов.
+ */
+public final class ColumnarSnapshot {
+    static final int MAGIC = 0x46534E50;
+    static final int VERSION = 3;
+    static final long NULL_VALUE = Long.MIN_VALUE;
+    static final int COLUMNS_OFFSET = 40;
+    static final int HEADER_SIZE = COLUMNS_OFFSET + Column.values().length * 16;
+
+    enum Column {
+        FILM_ID, FILM_LIKES_END, FILM_LIKES, FILM_NAME, FILM_DESCRIPTION, FILM_RELEASE_DATE, FILM_DURATION,
+        USER_ID, USER_FRIENDS_END, USER_FRIENDS, USER_EMAIL, USER_LOGIN, USER_NAME, USER_BIRTHDAY,
+        USER_EMAIL_INDEX, LIKER_ID, LIKER_FILMS_END, LIKER_FILMS, STRINGS
+    }
+
+    private final long replayFromSegment;
+    private final int filmCount;
+    private final int userCount;
+    private final int likerCount;
+    private final Map<Column, MappedRegion> columns = new EnumMap<>(Column.class);
+    private final FilmArchive films = new FilmColumns();
+    private final UserArchive users = new UserColumns();
+    private final EntityArchive<LikedFilms> likedFilms = new LikedFilmsColumns();
+
+    private ColumnarSnapshot(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header) >= 0) {
+            // читаем заголовок целиком
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Неизвестный формат снимка");
+        }
+        replayFromSegment = header.getLong();
+        filmCount = (int) header.getLong();
+        userCount = (int) header.getLong();
+        likerCount = (int) header.getLong();
+        for (Column column : Column.values()) {
+            long offset = header.getLong();
+            long length = header.getLong();
+            if (offset + length > channel.size()) {
+                throw new IOException("Повреждённый снимок: колонка " + column + " выходит за конец файла");
+            }
+            columns.put(column, MappedRegion.map(channel, offset, length));
+        }
+    }
+
+    public static ColumnarSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ColumnarSnapshot(channel);
+        } catch (IOException e) {
+            throw new IOException("Не удалось открыть снимок " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    public long replayFromSegment() {
+        return replayFromSegment;
+    }
+
+    public FilmArchive films() {
+        return films;
+    }
+
+    public UserArchive users() {
+        return users;
+    }
+
+    static int emailHash(String normalizedEmail) {
+        return normalizedEmail.hashCode();
+    }
+
+    private long value(Column column, long index) {
+        return columns.get(column).getLong(index);
+    }
+
+    private String string(Column column, long row) {
+        long offset = value(column, row);
+        if (offset < 0) {
+            return null;
+        }
+        MappedRegion strings = columns.get(Column.STRINGS);
+        byte[] lengthBytes = new byte[Integer.BYTES];
+        strings.getBytes(offset, lengthBytes);
+        byte[] bytes = new byte[ByteBuffer.wrap(lengthBytes).getInt()];
+        strings.getBytes(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private LocalDate date(Column column, long row) {
+        long epochDay = value(column, row);
+        return epochDay == NULL_VALUE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private long start(Column endColumn, int row) {
+        return row == 0 ? 0 : value(endColumn, row - 1);
+    }
+
+    private long[] slice(Column endColumn, Column valueColumn, int row) {
+        long start = start(endColumn, row);
+        long[] values = new long[(int) (value(endColumn, row) - start)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = value(valueColumn, start + i);
+        }
+        return values;
+    }
+
+    private int lowerBound(Column idColumn, int size, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (value(idColumn, middle) < id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int rowOf(Column idColumn, int size, long id) {
+        int row = lowerBound(idColumn, size, id);
+        return row < size && value(idColumn, row) == id ? row : -1;
+    }
+
+    private class FilmColumns implements FilmArchive {
+        @Override
+        public int size() {
+            return filmCount;
+        }
+
+        @Override
+        public long idAt(int row) {
+            return value(Column.FILM_ID, row);
+        }
+
+        @Override
+        public int rowOf(long id) {
+            return ColumnarSnapshot.this.rowOf(Column.FILM_ID, filmCount, id);
+        }
+
+        @Override
+        public int firstRowAfter(long id) {
+            return id == Long.MAX_VALUE ? filmCount : lowerBound(Column.FILM_ID, filmCount, id + 1);
+        }
+
+        @Override
+        public EntityArchive<LikedFilms> likedFilms() {
+            return likedFilms;
+        }
+
+        @Override
+        public int likesCount(int row) {
+            return (int) (value(Column.FILM_LIKES_END, row) - start(Column.FILM_LIKES_END, row));
+        }
+
+        @Override
+        public Film materialize(int row) {
+            Film film = new Film();
+            film.setId(idAt(row));
+            film.setName(string(Column.FILM_NAME, row));
+            film.setDescription(string(Column.FILM_DESCRIPTION, row));
+            film.setReleaseDate(date(Column.FILM_RELEASE_DATE, row));
+            long duration = value(Column.FILM_DURATION, row);
+            film.setDuration(duration == NULL_VALUE ? null : (int) duration);
+            film.setLikes(SortedLongSet.of(slice(Column.FILM_LIKES_END, Column.FILM_LIKES, row)));
+            return film;
+        }
+    }
+
+    private class UserColumns implements UserArchive {
+        @Override
+        public int size() {
+            return userCount;
+        }
+
+        @Override
+        public long idAt(int row) {
+            return value(Column.USER_ID, row);
+        }
+
+        @Override
+        public int rowOf(long id) {
+            return ColumnarSnapshot.this.rowOf(Column.USER_ID, userCount, id);
+        }
+
+        @Override
+        public int firstRowAfter(long id) {
+            return id == Long.MAX_VALUE ? userCount : lowerBound(Column.USER_ID, userCount, id + 1);
+        }
+
+        @Override
+        public User materialize(int row) {
+            User user = new User();
+            user.setId(idAt(row));
+            user.setEmail(string(Column.USER_EMAIL, row));
+            user.setLogin(string(Column.USER_LOGIN, row));
+            user.setName(string(Column.USER_NAME, row));
+            user.setBirthday(date(Column.USER_BIRTHDAY, row));
+            user.setFriends(SortedLongSet.of(slice(Column.USER_FRIENDS_END, Column.USER_FRIENDS, row)));
+            return user;
+        }
+
+        @Override
+        public long friendshipsCount() {
+            return userCount == 0 ? 0 : value(Column.USER_FRIENDS_END, userCount - 1) / 2;
+        }
+
+        @Override
+        public long findIdByEmail(String normalizedEmail) {
+            long hash = emailHash(normalizedEmail);
+            int low = 0;
+            int high = userCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (value(Column.USER_EMAIL_INDEX, middle) >> 32 < hash) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            for (int i = low; i < userCount; i++) {
+                long entry = value(Column.USER_EMAIL_INDEX, i);
+                if (entry >> 32 != hash) {
+                    break;
+                }
+                int row = (int) entry;
+                String email = string(Column.USER_EMAIL, row);
+                if (email != null && email.toLowerCase(Locale.ROOT).equals(normalizedEmail)) {
+                    return idAt(row);
+                }
+            }
+            return -1;
+        }
+    }
+
+    private class LikedFilmsColumns implements EntityArchive<LikedFilms> {
+        @Override
+        public int size() {
+            return likerCount;
+        }
+
+        @Override
+        public long idAt(int row) {
+            return value(Column.LIKER_ID, row);
+        }
+
+        @Override
+        public int rowOf(long id) {
+            return ColumnarSnapshot.this.rowOf(Column.LIKER_ID, likerCount, id);
+        }
+
+        @Override
+        public int firstRowAfter(long id) {
+            return id == Long.MAX_VALUE ? likerCount : lowerBound(Column.LIKER_ID, likerCount, id + 1);
+        }
+
+        @Override
+        public LikedFilms materialize(int row) {
+            return new LikedFilms(idAt(row),
+                    SortedLongSet.of(slice(Column.LIKER_FILMS_END, Column.LIKER_FILMS, row)));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.LikedFilms;
+import ru.yandex.practicum.filmorate.storage.persistence.ColumnarSnapshot.Column;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Пишет {@link ColumnarSnapshot}: каждая колонка сначала потоково пишется во временный файл,
+ * затем колонки склеиваются в итоговый файл с выравниванием на 8 байт. В памяти держится только индекс email.
+ */
+final class ColumnarSnapshotWriter implements AutoCloseable {
+    private final Path file;
+    private final Path columnsDirectory;
+    private final Map<Column, DataOutputStream> outputs = new EnumMap<>(Column.class);
+    private long stringsSize;
+
+    private ColumnarSnapshotWriter(Path file) throws IOException {
+        this.file = file;
+        this.columnsDirectory = file.resolveSibling(file.getFileName() + ".columns");
+        Files.createDirectories(columnsDirectory);
+        for (Column column : Column.values()) {
+            outputs.put(column, new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(columnPath(column)), 1 << 16)));
+        }
+    }
+
+    static void write(Path file, long replayFromSegment, Stream<Film> films, Stream<User> users,
+                      Stream<LikedFilms> likedFilms) throws IOException {
+        try (ColumnarSnapshotWriter writer = new ColumnarSnapshotWriter(file)) {
+            int filmCount = writer.writeFilms(films.iterator());
+            int userCount = writer.writeUsers(users.iterator());
+            int likerCount = writer.writeLikedFilms(likedFilms.iterator());
+            writer.assemble(replayFromSegment, filmCount, userCount, likerCount);
+        }
+    }
+
+    private int writeFilms(Iterator<Film> films) throws IOException {
+        int count = 0;
+        long likesEnd = 0;
+        while (films.hasNext()) {
+            Film film = films.next();
+            long[] likes = film.getLikes().toLongArray();
+            for (long userId : likes) {
+                out(Column.FILM_LIKES).writeLong(userId);
+            }
+            likesEnd += likes.length;
+            out(Column.FILM_ID).writeLong(film.getId());
+            out(Column.FILM_LIKES_END).writeLong(likesEnd);
+            writeString(Column.FILM_NAME, film.getName());
+            writeString(Column.FILM_DESCRIPTION, film.getDescription());
+            writeDate(Column.FILM_RELEASE_DATE, film.getReleaseDate());
+            out(Column.FILM_DURATION).writeLong(film.getDuration() == null
+                    ? ColumnarSnapshot.NULL_VALUE : film.getDuration());
+            count++;
+        }
+        return count;
+    }
+
+    private int writeUsers(Iterator<User> users) throws IOException {
+        long[] emailIndex = new long[1024];
+        int count = 0;
+        long friendsEnd = 0;
+        while (users.hasNext()) {
+            User user = users.next();
+            long[] friends = user.getFriends().toLongArray();
+            for (long friendId : friends) {
+                out(Column.USER_FRIENDS).writeLong(friendId);
+            }
+            friendsEnd += friends.length;
+            out(Column.USER_ID).writeLong(user.getId());
+            out(Column.USER_FRIENDS_END).writeLong(friendsEnd);
+            writeString(Column.USER_EMAIL, user.getEmail());
+            writeString(Column.USER_LOGIN, user.getLogin());
+            writeString(Column.USER_NAME, user.getName());
+            writeDate(Column.USER_BIRTHDAY, user.getBirthday());
+            if (count == emailIndex.length) {
+                emailIndex = Arrays.copyOf(emailIndex, count * 2);
+            }
+            int hash = user.getEmail() == null ? 0 : ColumnarSnapshot.emailHash(user.getEmail().toLowerCase(Locale.ROOT));
+            emailIndex[count] = (long) hash << 32 | count;
+            count++;
+        }
+        long[] sortedIndex = Arrays.copyOf(emailIndex, count);
+        Arrays.sort(sortedIndex);
+        for (long entry : sortedIndex) {
+            out(Column.USER_EMAIL_INDEX).writeLong(entry);
+        }
+        return count;
+    }
+
+    private int writeLikedFilms(Iterator<LikedFilms> likedFilms) throws IOException {
+        int count = 0;
+        long filmsEnd = 0;
+        while (likedFilms.hasNext()) {
+            LikedFilms liked = likedFilms.next();
+            SortedLongSet filmIds = liked.filmIds().snapshot();
+            for (int i = 0; i < filmIds.size(); i++) {
+                out(Column.LIKER_FILMS).writeLong(filmIds.get(i));
+            }
+            filmsEnd += filmIds.size();
+            out(Column.LIKER_ID).writeLong(liked.userId());
+            out(Column.LIKER_FILMS_END).writeLong(filmsEnd);
+            count++;
+        }
+        return count;
+    }
+
+    private void assemble(long replayFromSegment, int filmCount, int userCount, int likerCount) throws IOException {
+        for (DataOutputStream output : outputs.values()) {
+            output.close();
+        }
+        ByteBuffer header = ByteBuffer.allocate(ColumnarSnapshot.HEADER_SIZE);
+        header.putInt(ColumnarSnapshot.MAGIC);
+        header.putInt(ColumnarSnapshot.VERSION);
+        header.putLong(replayFromSegment);
+        header.putLong(filmCount);
+        header.putLong(userCount);
+        header.putLong(likerCount);
+        long offset = align(ColumnarSnapshot.HEADER_SIZE);
+        for (Column column : Column.values()) {
+            long length = Files.size(columnPath(column));
+            header.putLong(offset);
+            header.putLong(length);
+            offset = align(offset + length);
+        }
+        header.flip();
+        try (FileChannel target = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Column column : Column.values()) {
+                long position = header.getLong(ColumnarSnapshot.COLUMNS_OFFSET + column.ordinal() * 16);
+                try (FileChannel source = FileChannel.open(columnPath(column), StandardOpenOption.READ)) {
+                    long copied = 0;
+                    while (copied < source.size()) {
+                        copied += source.transferTo(copied, source.size() - copied, target.position(position + copied));
+                    }
+                }
+            }
+            target.position(0);
+            while (header.hasRemaining()) {
+                target.write(header);
+            }
+            target.force(true);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Column column : Column.values()) {
+            outputs.get(column).close();
+            Files.deleteIfExists(columnPath(column));
+        }
+        Files.deleteIfExists(columnsDirectory);
+    }
+
+    private DataOutputStream out(Column column) {
+        return outputs.get(column);
+    }
+
+    private void writeString(Column column, String value) throws IOException {
+        if (value == null) {
+            out(column).writeLong(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out(column).writeLong(stringsSize);
+        out(Column.STRINGS).writeInt(bytes.length);
+        out(Column.STRINGS).write(bytes);
+        stringsSize += Integer.BYTES + bytes.length;
+    }
+
+    private void writeDate(Column column, LocalDate date) throws IOException {
+        out(column).writeLong(date == null ? ColumnarSnapshot.NULL_VALUE : date.toEpochDay());
+    }
+
+    private Path columnPath(Column column) {
+        return columnsDirectory.resolve(column.name().toLowerCase(Locale.ROOT) + ".col");
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+final class EntityCodec {
+    private static final long NULL_DATE = Long.MIN_VALUE;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    private EntityCodec() {
+    }
+
+    static void writeFilm(DataOutput out, Film film) throws IOException {
+        out.writeLong(film.getId());
+        writeString(out, film.getName());
+        writeString(out, film.getDescription());
+        writeDate(out, film.getReleaseDate());
+        out.writeInt(film.getDuration() == null ? NULL_INT : film.getDuration());
+    }
+
+    static Film readFilm(DataInput in) throws IOException {
+        Film film = new Film();
+        film.setId(in.readLong());
+        film.setName(readString(in));
+        film.setDescription(readString(in));
+        film.setReleaseDate(readDate(in));
+        int duration = in.readInt();
+        film.setDuration(duration == NULL_INT ? null : duration);
+        return film;
+    }
+
+    static void writeUser(DataOutput out, User user) throws IOException {
+        out.writeLong(user.getId());
+        writeString(out, user.getEmail());
+        writeString(out, user.getLogin());
+        writeString(out, user.getName());
+        writeDate(out, user.getBirthday());
+    }
+
+    static User readUser(DataInput in) throws IOException {
+        User user = new User();
+        user.setId(in.readLong());
+        user.setEmail(readString(in));
+        user.setLogin(readString(in));
+        user.setName(readString(in));
+        user.setBirthday(readDate(in));
+        return user;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? NULL_DATE : date.toEpochDay());
+    }
+
+    private static LocalDate readDate(DataInput in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == NULL_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
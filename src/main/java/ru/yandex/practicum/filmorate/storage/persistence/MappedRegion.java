@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Область файла, отображённая в память частями по 1 ГиБ, чтобы обойти ограничение
+ * MappedByteBuffer в 2 ГиБ. Начало области выровнено на 8 байт, поэтому long не пересекает границу частей.
+ */
+final class MappedRegion {
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final MappedByteBuffer[] chunks;
+
+    private MappedRegion(MappedByteBuffer[] chunks) {
+        this.chunks = chunks;
+    }
+
+    static MappedRegion map(FileChannel channel, long offset, long length) throws IOException {
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((length + CHUNK_SIZE - 1) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            long start = (long) i << CHUNK_SHIFT;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + start, Math.min(CHUNK_SIZE, length - start));
+        }
+        return new MappedRegion(chunks);
+    }
+
+    long getLong(long index) {
+        long position = index << 3;
+        return chunks[(int) (position >>> CHUNK_SHIFT)].getLong((int) (position & CHUNK_MASK));
+    }
+
+    void getBytes(long position, byte[] target) {
+        int copied = 0;
+        while (copied < target.length) {
+            MappedByteBuffer chunk = chunks[(int) (position >>> CHUNK_SHIFT)];
+            int offset = (int) (position & CHUNK_MASK);
+            int length = Math.min(target.length - copied, chunk.capacity() - offset);
+            chunk.get(offset, target, copied, length);
+            copied += length;
+            position += length;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Журнал изменений хранилищ. Методы записи вызываются под блокировкой изменяемой сущности,
+ * поэтому порядок записей в журнале совпадает с порядком применения изменений.
+ * Возвращаемую позицию нужно передать в {@link #awaitDurable(long)} уже после снятия блокировки.
+ */
+public interface MutationLog {
+    long NO_CHANGE = -1;
+    long NOT_LOGGED = 0;
+
+    MutationLog NOOP = new MutationLog() {
+        @Override
+        public long filmSaved(Film film) {
+            return NOT_LOGGED;
+        }
+
+        @Override
+        public long likeChanged(long filmId, long userId, boolean liked) {
+            return NOT_LOGGED;
+        }
+
+        @Override
+        public long userSaved(User user) {
+            return NOT_LOGGED;
+        }
+
+        @Override
+        public long friendshipChanged(long userId, long friendId, boolean friends) {
+            return NOT_LOGGED;
+        }
+
+        @Override
+        public void awaitDurable(long position) {
+        }
+    };
+
+    long filmSaved(Film film);
+
+    long likeChanged(long filmId, long userId, boolean liked);
+
+    long userSaved(User user);
+
+    long friendshipChanged(long userId, long friendId, boolean friends);
+
+    void awaitDurable(long position);
+}
@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Восстанавливает хранилища из снимка и журнала при старте и периодически делает новый снимок,
+ * после чего удаляет сегменты журнала, которые он покрывает. Снимок не загружается целиком:
+ * хранилища подключают его как архив и читают сущности из отображённого файла по мере обращения.
+ */
+@Slf4j
+public class PersistenceManager implements Closeable {
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    private final WriteAheadLog writeAheadLog;
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+    private final Path directory;
+    private final Duration snapshotInterval;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private ScheduledExecutorService scheduler;
+
+    public PersistenceManager(WriteAheadLog writeAheadLog, InMemoryFilmStorage filmStorage,
+                              InMemoryUserStorage userStorage, Path directory, Duration snapshotInterval) {
+        this.writeAheadLog = writeAheadLog;
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.directory = directory;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    public void start() throws IOException {
+        recover();
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("snapshot-writer").daemon().factory());
+        long intervalMillis = snapshotInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recover() throws IOException {
+        long startedAt = System.nanoTime();
+        RecordHandler handler = new StorageRecordHandler();
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        long replayFrom = 1;
+        if (Files.exists(snapshot)) {
+            ColumnarSnapshot columnarSnapshot = ColumnarSnapshot.open(snapshot);
+            filmStorage.attach(columnarSnapshot.films());
+            userStorage.attach(columnarSnapshot.users());
+            replayFrom = columnarSnapshot.replayFromSegment();
+        }
+        long records = 0;
+        long current = writeAheadLog.currentSegment();
+        for (long segment : WriteAheadLog.listSegments(directory)) {
+            if (segment >= replayFrom && segment < current) {
+                records += WalReader.replay(WriteAheadLog.segmentPath(directory, segment), handler);
+            }
+        }
+        log.info("Хранилища восстановлены за {} мс: снимок {}, записей журнала {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt),
+                Files.exists(snapshot) ? "подключён" : "отсутствует", records);
+    }
+
+    public void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long startedAt = System.nanoTime();
+            long replayFrom = writeAheadLog.rotate();
+            Path target = directory.resolve(SNAPSHOT_FILE);
+            Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            ColumnarSnapshotWriter.write(temporary, replayFrom, filmStorage.stream(), userStorage.stream(),
+                    filmStorage.likedFilmsStream());
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            writeAheadLog.deleteSegmentsBefore(replayFrom);
+            log.info("Снимок хранилищ записан за {} мс",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        snapshot();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.error("Не удалось записать снимок хранилищ: {}", e.getMessage(), e);
+        }
+    }
+
+    private class StorageRecordHandler implements RecordHandler {
+        @Override
+        public void filmSaved(Film film) {
+            filmStorage.restore(film);
+        }
+
+        @Override
+        public void likeChanged(long filmId, long userId, boolean liked) {
+            filmStorage.restoreLike(filmId, userId, liked);
+        }
+
+        @Override
+        public void userSaved(User user) {
+            userStorage.restore(user);
+        }
+
+        @Override
+        public void friendshipChanged(long userId, long friendId, boolean friends) {
+            userStorage.restoreFriendship(userId, friendId, friends);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Буфер записей журнала: [длина тела][тип + тело][CRC32C тела].
+ */
+final class RecordBuffer extends OutputStream {
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private final DataOutputStream data = new DataOutputStream(this);
+    private final CRC32C crc = new CRC32C();
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    void append(RecordType type, RecordBody body) {
+        int start = size;
+        try {
+            data.writeInt(0);
+            data.writeByte(type.code);
+            body.writeTo(data);
+            int length = size - start - Integer.BYTES;
+            ByteBuffer.wrap(bytes, start, Integer.BYTES).putInt(length);
+            crc.reset();
+            crc.update(bytes, start + Integer.BYTES, length);
+            data.writeInt((int) crc.getValue());
+        } catch (IOException e) {
+            size = start;
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(bytes, 0, size);
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(size + 1);
+        bytes[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] source, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(source, offset, bytes, size, length);
+        size += length;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordBody {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+interface RecordHandler {
+
+    void filmSaved(Film film);
+
+    void likeChanged(long filmId, long userId, boolean liked);
+
+    void userSaved(User user);
+
+    void friendshipChanged(long userId, long friendId, boolean friends);
+}
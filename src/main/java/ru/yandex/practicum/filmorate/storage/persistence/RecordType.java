@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+enum RecordType {
+    FILM_SAVED(1),
+    LIKE_ADDED(2),
+    LIKE_REMOVED(3),
+    USER_SAVED(4),
+    FRIEND_ADDED(5),
+    FRIEND_REMOVED(6);
+
+    private static final RecordType[] BY_CODE = new RecordType[7];
+
+    static {
+        for (RecordType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    final byte code;
+
+    RecordType(int code) {
+        this.code = (byte) code;
+    }
+
+    static RecordType of(byte code) {
+        if (code <= 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Неизвестный тип записи журнала: " + code);
+        }
+        return BY_CODE[code];
+    }
+}
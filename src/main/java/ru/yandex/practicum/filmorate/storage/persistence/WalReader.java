@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+@Slf4j
+final class WalReader {
+    private static final int MAX_RECORD_LENGTH = 16 * 1024 * 1024;
+
+    private WalReader() {
+    }
+
+    /**
+     * Применяет записи сегмента по порядку. Недописанный или повреждённый хвост
+     * (запись, которую не успели зафиксировать до сбоя) отбрасывается, а файл обрезается.
+     */
+    static long replay(Path segment, RecordHandler handler) throws IOException {
+        long applied = 0;
+        long validLength = 0;
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            while (true) {
+                byte[] body;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                        break;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                    int checksum = in.readInt();
+                    crc.reset();
+                    crc.update(body);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                apply(body, handler);
+                applied++;
+                validLength += Integer.BYTES + body.length + Integer.BYTES;
+            }
+            if (validLength < channel.size()) {
+                log.warn("Сегмент {} обрезан с {} до {} байт: незавершённая запись", segment.getFileName(),
+                        channel.size(), validLength);
+                channel.truncate(validLength);
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(byte[] body, RecordHandler handler) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        switch (RecordType.of(in.readByte())) {
+            case FILM_SAVED -> {
+                Film film = EntityCodec.readFilm(in);
+                handler.filmSaved(film);
+            }
+            case LIKE_ADDED -> handler.likeChanged(in.readLong(), in.readLong(), true);
+            case LIKE_REMOVED -> handler.likeChanged(in.readLong(), in.readLong(), false);
+            case USER_SAVED -> {
+                User user = EntityCodec.readUser(in);
+                handler.userSaved(user);
+            }
+            case FRIEND_ADDED -> handler.friendshipChanged(in.readLong(), in.readLong(), true);
+            case FRIEND_REMOVED -> handler.friendshipChanged(in.readLong(), in.readLong(), false);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Журнал упреждающей записи с групповой фиксацией. Записи копируются в буфер под коротким lock,
+ * а отдельный поток раз в окно группировки пишет накопленный буфер в текущий сегмент и делает fsync.
+ * Порядок захвата: ioLock, затем lock.
+ */
+@Slf4j
+public class WriteAheadLog implements MutationLog, Closeable {
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final long groupCommitWindowNanos;
+    private final boolean fsync;
+
+    private final ReentrantLock ioLock = new ReentrantLock();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition recordsAppended = lock.newCondition();
+    private final Condition recordsDurable = lock.newCondition();
+
+    private RecordBuffer pending = new RecordBuffer();
+    private RecordBuffer spare = new RecordBuffer();
+    private long appendedPosition;
+    private long durablePosition;
+    private boolean closed;
+    private Exception failure;
+
+    private long segment;
+    private FileChannel channel;
+    private final Thread flusher;
+
+    public WriteAheadLog(Path directory, Duration groupCommitWindow, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.groupCommitWindowNanos = groupCommitWindow.toNanos();
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        List<Long> segments = listSegments(directory);
+        this.segment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+        this.channel = openSegment(segment);
+        this.flusher = Thread.ofPlatform().name("wal-flusher").daemon().start(this::flushLoop);
+    }
+
+    public static List<Long> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    public static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    public long currentSegment() {
+        ioLock.lock();
+        try {
+            return segment;
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    @Override
+    public long filmSaved(Film film) {
+        return append(RecordType.FILM_SAVED, out -> EntityCodec.writeFilm(out, film));
+    }
+
+    @Override
+    public long likeChanged(long filmId, long userId, boolean liked) {
+        return append(liked ? RecordType.LIKE_ADDED : RecordType.LIKE_REMOVED, out -> {
+            out.writeLong(filmId);
+            out.writeLong(userId);
+        });
+    }
+
+    @Override
+    public long userSaved(User user) {
+        return append(RecordType.USER_SAVED, out -> EntityCodec.writeUser(out, user));
+    }
+
+    @Override
+    public long friendshipChanged(long userId, long friendId, boolean friends) {
+        return append(friends ? RecordType.FRIEND_ADDED : RecordType.FRIEND_REMOVED, out -> {
+            out.writeLong(userId);
+            out.writeLong(friendId);
+        });
+    }
+
+    @Override
+    public void awaitDurable(long position) {
+        if (position == NO_CHANGE || position == NOT_LOGGED) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durablePosition < position) {
+                checkAvailable();
+                recordsDurable.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Закрывает текущий сегмент и начинает новый. Все записи, добавленные до вызова,
+     * оказываются в сегментах с номером меньше возвращённого.
+     */
+    public long rotate() throws IOException {
+        ioLock.lock();
+        try {
+            flushPending();
+            channel.force(true);
+            channel.close();
+            segment++;
+            channel = openSegment(segment);
+            return segment;
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    public void deleteSegmentsBefore(long firstRetained) throws IOException {
+        for (long existing : listSegments(directory)) {
+            if (existing < firstRetained) {
+                Files.deleteIfExists(segmentPath(directory, existing));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            recordsAppended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ioLock.lock();
+        try {
+            flushPending();
+            channel.force(true);
+            channel.close();
+        } finally {
+            ioLock.unlock();
+        }
+        lock.lock();
+        try {
+            recordsDurable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long append(RecordType type, RecordBuffer.RecordBody body) {
+        lock.lock();
+        try {
+            checkAvailable();
+            pending.append(type, body);
+            recordsAppended.signal();
+            return ++appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkAvailable() {
+        if (failure != null) {
+            throw new IllegalStateException("Журнал изменений недоступен", failure);
+        }
+        if (closed && durablePosition == appendedPosition) {
+            throw new IllegalStateException("Журнал изменений закрыт");
+        }
+    }
+
+    private void flushLoop() {
+        try {
+            while (awaitRecords()) {
+                if (groupCommitWindowNanos > 0) {
+                    LockSupport.parkNanos(groupCommitWindowNanos);
+                }
+                ioLock.lock();
+                try {
+                    flushPending();
+                } finally {
+                    ioLock.unlock();
+                }
+            }
+        } catch (Exception e) {
+            log.error("Ошибка записи журнала изменений: {}", e.getMessage(), e);
+            lock.lock();
+            try {
+                failure = e;
+                recordsDurable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean awaitRecords() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!closed && appendedPosition == durablePosition) {
+                recordsAppended.await();
+            }
+            return !closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushPending() throws IOException {
+        RecordBuffer batch;
+        long target;
+        lock.lock();
+        try {
+            if (appendedPosition == durablePosition) {
+                return;
+            }
+            batch = pending;
+            pending = spare;
+            spare = batch;
+            target = appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+        ByteBuffer bytes = batch.asByteBuffer();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        batch.reset();
+        lock.lock();
+        try {
+            durablePosition = target;
+            recordsDurable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentPath(directory, number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
@@ -1,52 +1,323 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EdgeStore;
+import ru.yandex.practicum.filmorate.storage.LookupResult;
+import ru.yandex.practicum.filmorate.storage.StripedLock;
+import ru.yandex.practicum.filmorate.storage.TieredMap;
+import ru.yandex.practicum.filmorate.storage.id.IdGenerator;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdGenerator;
+import ru.yandex.practicum.filmorate.storage.persistence.MutationLog;
+import ru.yandex.practicum.filmorate.util.LongSet;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
+@Timed(value = "filmorate.storage", histogram = true)
 @Component
+@Profile("!jdbc")
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Long, User> users = new HashMap<>();
+    private final Map<String, Long> userIdsByEmail = new ConcurrentHashMap<>();
+    // Email архивного пользователя попадает в индекс при переносе пользователя в память
+    private final TieredMap<User> users = new TieredMap<>(user -> {
+        if (user.getEmail() != null) {
+            userIdsByEmail.putIfAbsent(normalize(user.getEmail()), user.getId());
+        }
+    });
+    private final StripedLock locks = new StripedLock();
+    private final AtomicLong friendships = new AtomicLong();
+    private volatile UserArchive archive;
+    private final IdGenerator idGenerator;
+    private final MutationLog mutationLog;
+    private final EdgeStore friendEdges;
+
+    public InMemoryUserStorage() {
+        this(new SequenceIdGenerator(), MutationLog.NOOP);
+    }
+
+    public InMemoryUserStorage(IdGenerator idGenerator, MutationLog mutationLog) {
+        this(idGenerator, mutationLog, EdgeStore.HEAP);
+    }
+
+    @Autowired
+    public InMemoryUserStorage(@Qualifier("userIdGenerator") IdGenerator idGenerator, MutationLog mutationLog,
+                               @Qualifier("friendEdgeStore") EdgeStore friendEdges) {
+        this.idGenerator = idGenerator;
+        this.mutationLog = mutationLog;
+        this.friendEdges = friendEdges;
+    }
 
     @Override
     public Collection<User> findAll() {
-        return new ArrayList<>(users.values());
+        return Collections.unmodifiableCollection(users.values());
+    }
+
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        return users.stream(afterId)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Stream<User> stream() {
+        return users.stream(Long.MIN_VALUE);
     }
 
     @Override
     public User getById(Long id) {
-        if (id <= 0 || !users.containsKey(id)) {
+        User user = users.get(id);
+        if (user == null) {
             throw new NotFoundException("Пользователь с ID " + id + " не найден");
         }
-        return users.get(id);
+        return user;
+    }
+
+    @Override
+    public LookupResult<User> getByIds(Collection<Long> ids) {
+        List<User> found = new ArrayList<>(ids.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            User user = users.get(id);
+            if (user != null) {
+                found.add(user);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new LookupResult<>(found, missingIds);
     }
 
     @Override
     public User add(User user) {
-        long newId = getNextId();
-        user.setId(newId);
-        users.put(newId, user);
+        long newId = idGenerator.nextId();
+        long position = locks.withLock(newId, () -> {
+            reserveEmail(user.getEmail(), newId);
+            user.setId(newId);
+            users.put(newId, user);
+            return mutationLog.userSaved(user);
+        });
+        mutationLog.awaitDurable(position);
         return user;
     }
 
+    @Override
+    public List<User> addAll(List<User> newUsers) {
+        long lastPosition = MutationLog.NOT_LOGGED;
+        for (User user : newUsers) {
+            long newId = idGenerator.nextId();
+            try {
+                lastPosition = Math.max(lastPosition, locks.withLock(newId, () -> {
+                    reserveEmail(user.getEmail(), newId);
+                    user.setId(newId);
+                    users.put(newId, user);
+                    return mutationLog.userSaved(user);
+                }));
+            } catch (ValidationException e) {
+                user.setId(null);
+            }
+        }
+        mutationLog.awaitDurable(lastPosition);
+        return newUsers;
+    }
+
     @Override
     public User update(User user) {
-        users.put(user.getId(), user);
-        return user;
+        User existingUser = getById(user.getId());
+        long position = locks.withLock(user.getId(), () -> {
+            String previousEmail = existingUser.getEmail();
+            if (!Objects.equals(normalize(user.getEmail()), normalize(previousEmail))) {
+                reserveEmail(user.getEmail(), user.getId());
+                releaseEmail(previousEmail, user.getId());
+            }
+            copyFields(user, existingUser);
+            return mutationLog.userSaved(existingUser);
+        });
+        mutationLog.awaitDurable(position);
+        return existingUser;
+    }
+
+    @Override
+    public boolean addFriend(Long userId, Long friendId) {
+        User user = getById(userId);
+        User friend = getById(friendId);
+        long position = locks.withLocks(userId, friendId, () -> {
+            adoptFriends(user);
+            adoptFriends(friend);
+            if (!user.addFriend(friendId)) {
+                return MutationLog.NO_CHANGE;
+            }
+            friend.addFriend(userId);
+            friendships.incrementAndGet();
+            return mutationLog.friendshipChanged(userId, friendId, true);
+        });
+        mutationLog.awaitDurable(position);
+        return position != MutationLog.NO_CHANGE;
+    }
+
+    @Override
+    public boolean removeFriend(Long userId, Long friendId) {
+        User user = getById(userId);
+        User friend = getById(friendId);
+        long position = locks.withLocks(userId, friendId, () -> {
+            adoptFriends(user);
+            adoptFriends(friend);
+            if (!user.removeFriend(friendId)) {
+                return MutationLog.NO_CHANGE;
+            }
+            friend.removeFriend(userId);
+            friendships.decrementAndGet();
+            return mutationLog.friendshipChanged(userId, friendId, false);
+        });
+        mutationLog.awaitDurable(position);
+        return position != MutationLog.NO_CHANGE;
+    }
+
+    @Override
+    public Optional<Long> findIdByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        String key = normalize(email);
+        Long userId = userIdsByEmail.get(key);
+        if (userId != null) {
+            return Optional.of(userId);
+        }
+        loadArchivedOwner(key);
+        return Optional.ofNullable(userIdsByEmail.get(key));
+    }
+
+    @Override
+    public long count() {
+        return users.size();
+    }
+
+    @Override
+    public long friendshipsCount() {
+        return friendships.get();
+    }
+
+    public int emailIndexSize() {
+        return userIdsByEmail.size();
+    }
+
+    /**
+     * Подключает архив пользователей из снимка. Вызывается при старте до приёма запросов и до повтора журнала.
+     */
+    public void attach(UserArchive archive) {
+        this.archive = archive;
+        users.attach(archive);
+        friendships.addAndGet(archive.friendshipsCount());
+        if (archive.size() > 0) {
+            idGenerator.advanceTo(archive.idAt(archive.size() - 1));
+        }
+    }
+
+    public void restore(User user) {
+        locks.withLock(user.getId(), () -> {
+            User existingUser = users.putIfAbsent(user.getId(), user);
+            String previousEmail = existingUser == null ? null : existingUser.getEmail();
+            if (existingUser != null) {
+                copyFields(user, existingUser);
+            }
+            // Нечёткий снимок может временно содержать один email у двух пользователей,
+            // поэтому при восстановлении индекс перезаписывается, а не проверяется
+            if (user.getEmail() != null) {
+                userIdsByEmail.put(normalize(user.getEmail()), user.getId());
+            }
+            if (!Objects.equals(normalize(user.getEmail()), normalize(previousEmail))) {
+                releaseEmail(previousEmail, user.getId());
+            }
+            return null;
+        });
+        idGenerator.advanceTo(user.getId());
+    }
+
+    public void restoreFriendship(long userId, long friendId, boolean friends) {
+        User user = users.get(userId);
+        User friend = users.get(friendId);
+        if (user == null || friend == null) {
+            return;
+        }
+        locks.withLocks(userId, friendId, () -> {
+            adoptFriends(user);
+            adoptFriends(friend);
+            if (friends) {
+                if (user.addFriend(friendId)) {
+                    friendships.incrementAndGet();
+                }
+                friend.addFriend(userId);
+            } else {
+                if (user.removeFriend(friendId)) {
+                    friendships.decrementAndGet();
+                }
+                friend.removeFriend(userId);
+            }
+            return null;
+        });
+    }
+
+    // Новые и перенесённые из архива пользователи держат друзей в куче до первого изменения
+    private void adoptFriends(User user) {
+        LongSet friends = friendEdges.adopt(user.getId(), user.friendSet());
+        if (friends != user.friendSet()) {
+            user.setFriends(friends);
+        }
+    }
+
+    private static void copyFields(User source, User target) {
+        target.setEmail(source.getEmail());
+        target.setLogin(source.getLogin());
+        target.setName(source.getName());
+        target.setBirthday(source.getBirthday());
+    }
+
+    private void reserveEmail(String email, long userId) {
+        if (email == null) {
+            return;
+        }
+        loadArchivedOwner(normalize(email));
+        Long ownerId = userIdsByEmail.putIfAbsent(normalize(email), userId);
+        if (ownerId != null && ownerId != userId) {
+            throw new ValidationException("Email " + email + " уже используется");
+        }
+    }
+
+    // Пользователь, ещё не перенесённый из архива, не изменялся после снимка, поэтому архивный email актуален.
+    // Перенос регистрирует email в индексе, после чего проверка занятости идёт как обычно.
+    private void loadArchivedOwner(String normalizedEmail) {
+        UserArchive archive = this.archive;
+        if (archive != null && !userIdsByEmail.containsKey(normalizedEmail)) {
+            long ownerId = archive.findIdByEmail(normalizedEmail);
+            if (ownerId > 0) {
+                users.get(ownerId);
+            }
+        }
     }
 
-    private long getNextId() {
-        long currentMaxId = users.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0L);
-        return ++currentMaxId;
+    private void releaseEmail(String email, long userId) {
+        if (email != null) {
+            userIdsByEmail.remove(normalize(email), userId);
+        }
     }
 
+    private static String normalize(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
 }
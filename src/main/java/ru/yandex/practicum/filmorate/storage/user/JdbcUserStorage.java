@@ -0,0 +1,238 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.LookupResult;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Timed(value = "filmorate.storage", histogram = true)
+@Component
+@Profile("jdbc")
+public class JdbcUserStorage implements UserStorage {
+    private static final int BATCH_SIZE = 1000;
+    private static final String USER_COLUMNS = "id, email, login, name, birthday";
+    private static final RowMapper<User> USER_MAPPER = (rs, rowNum) -> {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setEmail(rs.getString("email"));
+        user.setLogin(rs.getString("login"));
+        user.setName(rs.getString("name"));
+        Date birthday = rs.getDate("birthday");
+        user.setBirthday(birthday == null ? null : birthday.toLocalDate());
+        return user;
+    };
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcUserStorage(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        return stream().toList();
+    }
+
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        List<User> users = jdbc.query("SELECT " + USER_COLUMNS + " FROM users WHERE id > :afterId"
+                        + " ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource("afterId", afterId).addValue("limit", limit), USER_MAPPER);
+        return withFriends(users);
+    }
+
+    // Выгрузка идёт страницами, чтобы не держать соединение из пула на всё время записи ответа
+    @Override
+    public Stream<User> stream() {
+        return Stream.iterate(findPage(0, BATCH_SIZE), page -> !page.isEmpty(),
+                        page -> page.size() < BATCH_SIZE ? List.of() : findPage(page.getLast().getId(), BATCH_SIZE))
+                .flatMap(List::stream);
+    }
+
+    @Override
+    public User add(User user) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbc.update("INSERT INTO users (email, email_key, login, name, birthday)"
+                    + " VALUES (:email, :emailKey, :login, :name, :birthday)", userParameters(user), keyHolder,
+                    new String[]{"id"});
+        } catch (DuplicateKeyException e) {
+            throw new ValidationException("Email " + user.getEmail() + " уже используется");
+        }
+        user.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
+        return user;
+    }
+
+    // Вставка условная: строка с email, уже занятым в таблице или раньше в этом же пакете, не вставляется,
+    // и по числу вставленных строк видно, кому из пакета достался ID. Конфликт остаётся возможен только
+    // с параллельной ещё не завершённой вставкой того же email
+    @Override
+    @Transactional
+    public List<User> addAll(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int[] inserted;
+        try {
+            inserted = jdbc.batchUpdate("INSERT INTO users (email, email_key, login, name, birthday)"
+                            + " SELECT :email, :emailKey, :login, :name, :birthday WHERE :emailKey IS NULL"
+                            + " OR NOT EXISTS (SELECT 1 FROM users WHERE email_key = :emailKey)",
+                    users.stream().map(JdbcUserStorage::userParameters).toArray(SqlParameterSource[]::new),
+                    keyHolder, new String[]{"id"});
+        } catch (DuplicateKeyException e) {
+            throw new ValidationException("Email из пакета уже используется");
+        }
+        Iterator<Map<String, Object>> keys = keyHolder.getKeyList().iterator();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(inserted[i] > 0 ? ((Number) keys.next().values().iterator().next()).longValue() : null);
+        }
+        return users;
+    }
+
+    @Override
+    public User update(User user) {
+        int updated;
+        try {
+            updated = jdbc.update("UPDATE users SET email = :email, email_key = :emailKey, login = :login,"
+                    + " name = :name, birthday = :birthday WHERE id = :id", userParameters(user));
+        } catch (DuplicateKeyException e) {
+            throw new ValidationException("Email " + user.getEmail() + " уже используется");
+        }
+        if (updated == 0) {
+            throw new NotFoundException("Пользователь с ID " + user.getId() + " не найден");
+        }
+        return getById(user.getId());
+    }
+
+    @Override
+    public User getById(Long id) {
+        List<User> users = jdbc.query("SELECT " + USER_COLUMNS + " FROM users WHERE id = :id",
+                new MapSqlParameterSource("id", id), USER_MAPPER);
+        if (users.isEmpty()) {
+            throw new NotFoundException("Пользователь с ID " + id + " не найден");
+        }
+        return withFriends(users).getFirst();
+    }
+
+    @Override
+    public LookupResult<User> getByIds(Collection<Long> ids) {
+        Map<Long, User> usersById = new HashMap<>();
+        List<Long> idList = List.copyOf(ids);
+        for (int from = 0; from < idList.size(); from += BATCH_SIZE) {
+            List<Long> batch = idList.subList(from, Math.min(from + BATCH_SIZE, idList.size()));
+            List<User> users = jdbc.query("SELECT " + USER_COLUMNS + " FROM users WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", batch), USER_MAPPER);
+            withFriends(users).forEach(user -> usersById.put(user.getId(), user));
+        }
+        List<User> found = new ArrayList<>(ids.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            User user = usersById.get(id);
+            if (user != null) {
+                found.add(user);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new LookupResult<>(found, missingIds);
+    }
+
+    // Обе стороны дружбы пишутся одним пакетом в одной транзакции
+    @Override
+    @Transactional
+    public boolean addFriend(Long userId, Long friendId) {
+        int[] inserted = jdbc.batchUpdate("INSERT INTO friendships (user_id, friend_id)"
+                + " SELECT :userId, :friendId WHERE NOT EXISTS"
+                + " (SELECT 1 FROM friendships WHERE user_id = :userId AND friend_id = :friendId)",
+                friendshipParameters(userId, friendId));
+        return inserted[0] > 0;
+    }
+
+    @Override
+    @Transactional
+    public boolean removeFriend(Long userId, Long friendId) {
+        int[] deleted = jdbc.batchUpdate("DELETE FROM friendships WHERE user_id = :userId AND friend_id = :friendId",
+                friendshipParameters(userId, friendId));
+        return deleted[0] > 0;
+    }
+
+    @Override
+    public Optional<Long> findIdByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        return jdbc.queryForList("SELECT id FROM users WHERE email_key = :emailKey",
+                new MapSqlParameterSource("emailKey", normalize(email)), Long.class).stream().findFirst();
+    }
+
+    @Override
+    public long count() {
+        return jdbc.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM users", Long.class);
+    }
+
+    @Override
+    public long friendshipsCount() {
+        return jdbc.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM friendships", Long.class) / 2;
+    }
+
+    private List<User> withFriends(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        Map<Long, List<Long>> friendIds = new HashMap<>();
+        users.forEach(user -> friendIds.put(user.getId(), new ArrayList<>()));
+        jdbc.query("SELECT user_id, friend_id FROM friendships WHERE user_id IN (:ids)",
+                new MapSqlParameterSource("ids", friendIds.keySet()),
+                rs -> {
+                    friendIds.get(rs.getLong("user_id")).add(rs.getLong("friend_id"));
+                });
+        users.forEach(user -> user.setFriends(SortedLongSet.of(
+                friendIds.get(user.getId()).stream().mapToLong(Long::longValue).toArray())));
+        return users;
+    }
+
+    private static MapSqlParameterSource userParameters(User user) {
+        return new MapSqlParameterSource("id", user.getId())
+                .addValue("email", user.getEmail())
+                .addValue("emailKey", normalize(user.getEmail()))
+                .addValue("login", user.getLogin())
+                .addValue("name", user.getName())
+                .addValue("birthday", user.getBirthday());
+    }
+
+    private static SqlParameterSource[] friendshipParameters(Long userId, Long friendId) {
+        return new SqlParameterSource[]{
+                new MapSqlParameterSource("userId", userId).addValue("friendId", friendId),
+                new MapSqlParameterSource("userId", friendId).addValue("friendId", userId)
+        };
+    }
+
+    private static String normalize(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+}
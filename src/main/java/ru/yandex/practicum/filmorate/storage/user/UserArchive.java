@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EntityArchive;
+
+public interface UserArchive extends EntityArchive<User> {
+
+    /**
+     * Возвращает ID пользователя с указанным email (в нижнем регистре) или -1.
+     */
+    long findIdByEmail(String normalizedEmail);
+
+    long friendshipsCount();
+}
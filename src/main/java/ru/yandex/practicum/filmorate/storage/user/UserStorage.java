@@ -1,16 +1,46 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.LookupResult;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserStorage {
 
     Collection<User> findAll();
 
+    List<User> findPage(long afterId, int limit);
+
+    Stream<User> stream();
+
     User add(User user);
 
+    /**
+     * Добавляет пользователей пакетом. Пользователь с email, занятым до пакета или раньше в том же пакете,
+     * не добавляется и остаётся без ID, остальные добавляются; возвращаются все пользователи пакета
+     * в том же порядке.
+     */
+    List<User> addAll(List<User> users);
+
     User update(User user);
 
     User getById(Long id);
+
+    LookupResult<User> getByIds(Collection<Long> ids);
+
+    boolean addFriend(Long userId, Long friendId);
+
+    boolean removeFriend(Long userId, Long friendId);
+
+    Optional<Long> findIdByEmail(String email);
+
+    long count();
+
+    /**
+     * Число дружеских связей; дружба взаимна, поэтому каждая пара считается один раз.
+     */
+    long friendshipsCount();
 }
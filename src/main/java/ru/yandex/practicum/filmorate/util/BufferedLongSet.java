@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.util;
+
+/**
+ * Большое множество с буфером последних изменений. Одиночное добавление или удаление копирует только
+ * отсортированный буфер, а базовый массив сливается с буфером, когда тот дорастает до корня из размера:
+ * лайк фильма с миллионом лайков копирует порядка тысячи значений вместо миллиона.
+ * Неизменяемо, как и {@link SortedLongSet}; слитый снимок вычисляется при первом чтении.
+ */
+public final class BufferedLongSet implements LongSet {
+    static final int MIN_BUFFERED_SIZE = 1024;
+    private static final int MIN_BUFFER_LIMIT = 32;
+
+    private final SortedLongSet base;
+    // Добавленные значения, которых нет в base, и удалённые, которые в base есть
+    private final SortedLongSet added;
+    private final SortedLongSet removed;
+    private volatile SortedLongSet merged;
+
+    private BufferedLongSet(SortedLongSet base, SortedLongSet added, SortedLongSet removed) {
+        this.base = base;
+        this.added = added;
+        this.removed = removed;
+    }
+
+    /**
+     * Добавляет значение; небольшие множества копируются целиком, большие получают буфер изменений.
+     */
+    public static LongSet with(LongSet set, long value) {
+        if (set instanceof SortedLongSet sorted && sorted.size() >= MIN_BUFFERED_SIZE && !sorted.contains(value)) {
+            return new BufferedLongSet(sorted, SortedLongSet.of(value), SortedLongSet.EMPTY);
+        }
+        return set.with(value);
+    }
+
+    public static LongSet without(LongSet set, long value) {
+        if (set instanceof SortedLongSet sorted && sorted.size() >= MIN_BUFFERED_SIZE && sorted.contains(value)) {
+            return new BufferedLongSet(sorted, SortedLongSet.EMPTY, SortedLongSet.of(value));
+        }
+        return set.without(value);
+    }
+
+    @Override
+    public int size() {
+        return base.size() + added.size() - removed.size();
+    }
+
+    @Override
+    public boolean contains(long value) {
+        return added.contains(value) || (base.contains(value) && !removed.contains(value));
+    }
+
+    @Override
+    public LongSet with(long value) {
+        if (contains(value)) {
+            return this;
+        }
+        return removed.contains(value) ? next(added, removed.without(value)) : next(added.with(value), removed);
+    }
+
+    @Override
+    public LongSet without(long value) {
+        if (!contains(value)) {
+            return this;
+        }
+        return added.contains(value) ? next(added.without(value), removed) : next(added, removed.with(value));
+    }
+
+    @Override
+    public LongSet withChanges(SortedLongSet addedValues, SortedLongSet removedValues) {
+        SortedLongSet current = snapshot();
+        SortedLongSet updated = current.withChanges(addedValues, removedValues);
+        return updated == current ? this : updated;
+    }
+
+    @Override
+    public SortedLongSet snapshot() {
+        SortedLongSet result = merged;
+        if (result == null) {
+            result = base.withChanges(added, removed);
+            merged = result;
+        }
+        return result;
+    }
+
+    private LongSet next(SortedLongSet nextAdded, SortedLongSet nextRemoved) {
+        if (nextAdded.size() + nextRemoved.size() > bufferLimit()) {
+            return base.withChanges(nextAdded, nextRemoved);
+        }
+        return new BufferedLongSet(base, nextAdded, nextRemoved);
+    }
+
+    private int bufferLimit() {
+        return Math.max(MIN_BUFFER_LIMIT, (int) Math.sqrt(base.size()));
+    }
+}
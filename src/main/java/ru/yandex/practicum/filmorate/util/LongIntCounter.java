@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.util;
+
+/**
+ * Счётчик long → int на открытой адресации без упаковки ключей. Нулевой счётчик означает пустую ячейку:
+ * ключ, счётчик которого уменьшился до нуля, удаляется, а отрицательные значения не допускаются.
+ */
+public final class LongIntCounter {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+
+    public LongIntCounter() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongIntCounter(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2) - 1) << 1;
+        keys = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    public int increment(long key) {
+        return add(key, 1);
+    }
+
+    public int add(long key, int delta) {
+        int slot = slotOf(keys, counts, key);
+        int result = counts[slot] + delta;
+        if (result <= 0) {
+            if (result < 0) {
+                throw new IllegalArgumentException("Счётчик ключа " + key + " стал бы отрицательным: " + result);
+            }
+            if (counts[slot] != 0) {
+                removeSlot(slot);
+            }
+            return 0;
+        }
+        if (counts[slot] == 0) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                counts[slot] = delta;
+                grow();
+                return delta;
+            }
+        }
+        counts[slot] += delta;
+        return counts[slot];
+    }
+
+    public int get(long key) {
+        return counts[slotOf(keys, counts, key)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(LongIntConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (counts[i] != 0) {
+                action.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Удаляет ячейку со сдвигом следующих ключей цепочки назад, чтобы поиск не обрывался на дыре.
+     */
+    private void removeSlot(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (counts[next] != 0) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                counts[hole] = counts[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        counts[hole] = 0;
+        size--;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldCounts.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] != 0) {
+                int slot = slotOf(keys, counts, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int slotOf(long[] keys, int[] counts, long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (counts[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @FunctionalInterface
+    public interface LongIntConsumer {
+        void accept(long key, int value);
+    }
+}
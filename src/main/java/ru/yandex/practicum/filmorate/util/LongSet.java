@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.util;
+
+/**
+ * Множество связей сущности: {@link SortedLongSet} в куче или представление над хранилищем связей вне кучи.
+ * Изменения возвращают тот же объект, если множество не изменилось, и другой — если изменилось:
+ * {@link SortedLongSet} при этом копируется, представление меняет хранилище на месте.
+ */
+public interface LongSet {
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    boolean contains(long value);
+
+    LongSet with(long value);
+
+    LongSet without(long value);
+
+    /**
+     * Добавляет и удаляет пачку значений; при пересечении удаление сильнее.
+     */
+    LongSet withChanges(SortedLongSet added, SortedLongSet removed);
+
+    /**
+     * Текущие значения как неизменяемое множество в куче; для {@link SortedLongSet} — он сам, без копирования.
+     */
+    SortedLongSet snapshot();
+}
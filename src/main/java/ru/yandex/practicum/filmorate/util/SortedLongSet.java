@@ -0,0 +1,247 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * Неизменяемое множество long-значений на отсортированном массиве.
+ * Изменения возвращают новый экземпляр, поэтому читатели работают с ним без копирования и блокировок.
+ */
+public final class SortedLongSet extends AbstractSet<Long> implements LongSet {
+    public static final SortedLongSet EMPTY = new SortedLongSet(new long[0]);
+
+    private final long[] values;
+
+    private SortedLongSet(long[] values) {
+        this.values = values;
+    }
+
+    public static SortedLongSet of(long... values) {
+        if (values.length == 0) {
+            return EMPTY;
+        }
+        long[] sorted = LongStream.of(values).sorted().distinct().toArray();
+        return new SortedLongSet(sorted);
+    }
+
+    /**
+     * Оборачивает массив без сортировки и копирования: он должен быть отсортирован, без повторов
+     * и не изменяться после передачи.
+     */
+    public static SortedLongSet ofSorted(long[] values) {
+        return values.length == 0 ? EMPTY : new SortedLongSet(values);
+    }
+
+    @Override
+    public boolean contains(long value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Long longValue && contains(longValue.longValue());
+    }
+
+    @Override
+    public SortedLongSet with(long value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index >= 0) {
+            return this;
+        }
+        int insertAt = -index - 1;
+        long[] updated = new long[values.length + 1];
+        System.arraycopy(values, 0, updated, 0, insertAt);
+        updated[insertAt] = value;
+        System.arraycopy(values, insertAt, updated, insertAt + 1, values.length - insertAt);
+        return new SortedLongSet(updated);
+    }
+
+    @Override
+    public SortedLongSet without(long value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index < 0) {
+            return this;
+        }
+        if (values.length == 1) {
+            return EMPTY;
+        }
+        long[] updated = new long[values.length - 1];
+        System.arraycopy(values, 0, updated, 0, index);
+        System.arraycopy(values, index + 1, updated, index, values.length - index - 1);
+        return new SortedLongSet(updated);
+    }
+
+    /**
+     * Добавляет и удаляет пачку значений за один проход слиянием; при пересечении удаление сильнее.
+     */
+    @Override
+    public SortedLongSet withChanges(SortedLongSet added, SortedLongSet removed) {
+        if (added.values.length == 0 && removed.values.length == 0) {
+            return this;
+        }
+        long[] result = new long[values.length + added.values.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        int count = 0;
+        while (i < values.length || j < added.values.length) {
+            long next;
+            if (j == added.values.length || (i < values.length && values[i] < added.values[j])) {
+                next = values[i++];
+            } else if (i == values.length || added.values[j] < values[i]) {
+                next = added.values[j++];
+            } else {
+                next = values[i++];
+                j++;
+            }
+            while (k < removed.values.length && removed.values[k] < next) {
+                k++;
+            }
+            if (k < removed.values.length && removed.values[k] == next) {
+                continue;
+            }
+            result[count++] = next;
+        }
+        if (count == values.length && Arrays.equals(values, 0, count, result, 0, count)) {
+            return this;
+        }
+        if (count == 0) {
+            return EMPTY;
+        }
+        return new SortedLongSet(count == result.length ? result : Arrays.copyOf(result, count));
+    }
+
+    public SortedLongSet intersect(SortedLongSet other) {
+        SortedLongSet small = values.length <= other.values.length ? this : other;
+        SortedLongSet large = small == this ? other : this;
+        if (small.values.length == 0) {
+            return EMPTY;
+        }
+        long[] result = new long[small.values.length];
+        int count;
+        // При сильно разных размерах бинарный поиск по большему массиву дешевле слияния
+        if ((long) small.values.length * 32 < large.values.length) {
+            count = intersectBySearch(small.values, large.values, result);
+        } else {
+            count = intersectByMerge(small.values, large.values, result);
+        }
+        if (count == 0) {
+            return EMPTY;
+        }
+        return new SortedLongSet(count == result.length ? result : Arrays.copyOf(result, count));
+    }
+
+    /**
+     * Индекс первого элемента, большего value, или size(), если таких нет.
+     */
+    public int higherIndex(long value) {
+        int index = Arrays.binarySearch(values, value);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    public long get(int index) {
+        return values[index];
+    }
+
+    public void forEachLong(LongConsumer action) {
+        for (long value : values) {
+            action.accept(value);
+        }
+    }
+
+    public LongStream longStream() {
+        return Arrays.stream(values);
+    }
+
+    public long[] toLongArray() {
+        return values.clone();
+    }
+
+    @Override
+    public SortedLongSet snapshot() {
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < values.length;
+            }
+
+            @Override
+            public Long next() {
+                if (index >= values.length) {
+                    throw new NoSuchElementException();
+                }
+                return values[index++];
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof SortedLongSet set) {
+            return Arrays.equals(values, set.values);
+        }
+        return other instanceof Set<?> && super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (long value : values) {
+            hash += Long.hashCode(value);
+        }
+        return hash;
+    }
+
+    private static int intersectByMerge(long[] left, long[] right, long[] result) {
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private static int intersectBySearch(long[] small, long[] large, long[] result) {
+        int from = 0;
+        int count = 0;
+        for (long value : small) {
+            int index = Arrays.binarySearch(large, from, large.length, value);
+            if (index >= 0) {
+                result[count++] = value;
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+            if (from >= large.length) {
+                break;
+            }
+        }
+        return count;
+    }
+}
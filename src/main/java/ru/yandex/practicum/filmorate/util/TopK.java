@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.util;
+
+/**
+ * Ограниченная куча для выбора k лучших (id, score) без упаковки: больший score лучше,
+ * при равенстве лучше меньший id. В корне лежит худший из отобранных.
+ */
+public final class TopK {
+    private final long[] ids;
+    private final int[] scores;
+    private int size;
+
+    public TopK(int k) {
+        ids = new long[k];
+        scores = new int[k];
+    }
+
+    public void offer(long id, int score) {
+        if (ids.length == 0) {
+            return;
+        }
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (isWorse(ids[0], scores[0], id, score)) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Возвращает отобранные id от лучшего к худшему. Куча после вызова пуста.
+     */
+    public long[] drainSorted() {
+        long[] result = new long[size];
+        drainSorted(result, new int[size]);
+        return result;
+    }
+
+    /**
+     * Записывает отобранные id и их score от лучшего к худшему и возвращает их число. Куча после вызова пуста.
+     */
+    public int drainSorted(long[] idsOut, int[] scoresOut) {
+        int count = size;
+        for (int i = count - 1; i >= 0; i--) {
+            idsOut[i] = ids[0];
+            scoresOut[i] = scores[0];
+            size--;
+            ids[0] = ids[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return count;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isWorse(ids[index], scores[index], ids[parent], scores[parent])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && isWorse(ids[left], scores[left], ids[worst], scores[worst])) {
+                worst = left;
+            }
+            if (right < size && isWorse(ids[right], scores[right], ids[worst], scores[worst])) {
+                worst = right;
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int first, int second) {
+        long id = ids[first];
+        ids[first] = ids[second];
+        ids[second] = id;
+        int score = scores[first];
+        scores[first] = scores[second];
+        scores[second] = score;
+    }
+
+    private static boolean isWorse(long id, int score, long otherId, int otherScore) {
+        return score < otherScore || (score == otherScore && id > otherId);
+    }
+}
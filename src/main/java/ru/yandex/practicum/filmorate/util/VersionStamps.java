@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Версии сущностей для кэшей, которые заполняются без блокировки: заполнение берёт версию до чтения данных
+ * и сверяет её после записи в кэш, а изменение увеличивает версию до удаления записи. Версии хранятся
+ * полосами по хэшу ID, поэтому изменение одной сущности сбрасывает заполнения соседей по полосе —
+ * это лишний промах, но не устаревшая запись.
+ */
+public final class VersionStamps {
+    private final AtomicLongArray versions;
+    private final int mask;
+
+    public VersionStamps(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.versions = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    public long get(long id) {
+        return versions.get(stripe(id));
+    }
+
+    public void bump(long id) {
+        versions.incrementAndGet(stripe(id));
+    }
+
+    private int stripe(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,35 @@
+CREATE TABLE IF NOT EXISTS films (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR(255) NOT NULL,
+    description  VARCHAR(200),
+    release_date DATE,
+    duration     INTEGER,
+    -- Копия COUNT(*) из likes, обновляется вместе с лайками: список популярных читается по индексу без агрегации
+    likes_count  INTEGER NOT NULL DEFAULT 0
+);
+CREATE INDEX IF NOT EXISTS films_likes_count_idx ON films (likes_count DESC, id);
+
+CREATE TABLE IF NOT EXISTS users (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email     VARCHAR(255),
+    email_key VARCHAR(255),
+    login     VARCHAR(255) NOT NULL,
+    name      VARCHAR(255),
+    birthday  DATE,
+    CONSTRAINT users_email_key_uq UNIQUE (email_key)
+);
+
+-- Первичный ключ (film_id, user_id) покрывает подсчёт лайков по фильму, обратный индекс нужен для выборки по пользователю
+CREATE TABLE IF NOT EXISTS likes (
+    film_id BIGINT NOT NULL REFERENCES films (id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    PRIMARY KEY (film_id, user_id)
+);
+CREATE INDEX IF NOT EXISTS likes_user_id_idx ON likes (user_id, film_id);
+
+-- Дружба взаимная и хранится в обе стороны, поэтому список друзей читается по первичному ключу
+CREATE TABLE IF NOT EXISTS friendships (
+    user_id   BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    friend_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, friend_id)
+);
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CollectionEndpointsTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void findAll_ShouldReturnJsonArray_WhenAcceptIsAny() throws Exception {
+        addUsers(3);
+        mockMvc.perform(get("/users").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(3));
+    }
+
+    @Test
+    void findPage_ShouldReturnUsersAfterCursor() throws Exception {
+        addUsers(5);
+        mockMvc.perform(get("/users").param("after", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[1].id").value(4));
+        mockMvc.perform(get("/users").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamAll_ShouldWriteOneUserPerLine_WhenNdjsonRequested() throws Exception {
+        addUsers(3);
+        MvcResult result = mockMvc.perform(get("/users").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[2].startsWith("{\"id\":3"));
+    }
+
+    @Test
+    void addAll_ShouldImportNdjsonAndArrays_AndReportRejectedRecords() throws Exception {
+        addUsers(1);
+        String users = """
+                {"login":"bulk1","email":"bulk1@ya.ru","birthday":"2000-01-01"}
+                {"login":"with space","email":"bad@ya.ru","birthday":"2000-01-01"}
+                {"login":"dup","email":"USER1@ya.ru","birthday":"2000-01-01"}
+                {"login":"bulk2","email":"bulk2@ya.ru","birthday":"2000-01-01"}
+                """;
+        mockMvc.perform(post("/users/bulk").contentType("application/x-ndjson").content(users))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(4))
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[0].message").value("Логин не может содержать пробелы"))
+                .andExpect(jsonPath("$.errors[1].index").value(2));
+        mockMvc.perform(get("/users"))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[2].login").value("bulk2"));
+
+        String films = """
+                [{"name":"Первый","releaseDate":"2000-01-01","duration":90},
+                 {"name":"Старый","releaseDate":"1800-01-01","duration":90},
+                 {"name":"Второй","releaseDate":"2000-01-01","duration":90}]
+                """;
+        mockMvc.perform(post("/films/bulk").contentType(MediaType.APPLICATION_JSON).content(films))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.errors[0].index").value(1));
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    private void addUsers(int count) throws Exception {
+        for (int i = 1; i <= count; i++) {
+            mockMvc.perform(post("/users")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"login\":\"user" + i + "\",\"email\":\"user" + i
+                                    + "@ya.ru\",\"birthday\":\"2000-01-01\"}"))
+                    .andExpect(status().isOk());
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
@@ -7,11 +9,13 @@ import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ServiceFixtures;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -31,9 +35,10 @@ class FilmControllerTest {
     void setUp() {
         filmStorage = new InMemoryFilmStorage();
         userStorage = new InMemoryUserStorage();
-        userService = new UserService(userStorage);
-        filmService = new FilmService(filmStorage, userService);
-        filmController = new FilmController(filmService);
+        userService = ServiceFixtures.userService(userStorage);
+        filmService = ServiceFixtures.filmService(filmStorage, userService);
+        filmController = new FilmController(filmService, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator());
         validFilm = new Film();
         validFilm.setName("Чебурашка");
         validFilm.setDescription("Фильм о дружелюбном ушастике");
@@ -101,6 +106,70 @@ class FilmControllerTest {
         assertTrue(likedFilm.getLikes().contains(userId));
     }
 
+    @Test
+    void getPopularFilms_ShouldOrderByLikesThenById() {
+        Film first = filmController.add(copyOf(validFilm));
+        Film second = filmController.add(copyOf(validFilm));
+        Film third = filmController.add(copyOf(validFilm));
+        User user = new User();
+        user.setEmail("test@ya.ru");
+        user.setLogin("testUser");
+        user.setBirthday(LocalDate.of(1900, 1, 1));
+        long userId = userService.addUser(user).getId();
+        filmController.addLike(third.getId(), userId);
+
+        List<Film> popular = filmController.getPopularFilms(10);
+        assertEquals(List.of(third.getId(), first.getId(), second.getId()),
+                popular.stream().map(Film::getId).toList());
+
+        filmController.deleteLike(third.getId(), userId);
+        assertEquals(List.of(first.getId(), second.getId()),
+                filmController.getPopularFilms(2).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void getTrendingFilms_ShouldRankByRecentLikes_AndRejectUnknownWindow() {
+        Film first = filmController.add(copyOf(validFilm));
+        Film second = filmController.add(copyOf(validFilm));
+        filmController.add(copyOf(validFilm));
+        User user = new User();
+        user.setEmail("test@ya.ru");
+        user.setLogin("testUser");
+        user.setBirthday(LocalDate.of(1900, 1, 1));
+        long userId = userService.addUser(user).getId();
+        filmController.addLike(second.getId(), userId);
+        filmController.addLike(first.getId(), userId);
+        filmController.deleteLike(first.getId(), userId);
+
+        assertEquals(List.of(second.getId()),
+                filmController.getTrendingFilms("1h", 10).stream().map(Film::getId).toList());
+        assertThrows(ValidationException.class, () -> filmController.getTrendingFilms("2h", 10));
+        assertThrows(ValidationException.class, () -> filmController.getTrendingFilms("7d", 0));
+    }
+
+    @Test
+    void getLikedFilms_ShouldPageThroughReverseIndex() {
+        UserFilmController userFilmController = new UserFilmController(filmService);
+        Film first = filmController.add(copyOf(validFilm));
+        Film second = filmController.add(copyOf(validFilm));
+        Film third = filmController.add(copyOf(validFilm));
+        User user = new User();
+        user.setEmail("test@ya.ru");
+        user.setLogin("testUser");
+        user.setBirthday(LocalDate.of(1900, 1, 1));
+        long userId = userService.addUser(user).getId();
+        filmController.addLike(third.getId(), userId);
+        filmController.addLike(first.getId(), userId);
+        filmController.addLike(second.getId(), userId);
+        filmController.deleteLike(second.getId(), userId);
+
+        assertEquals(List.of(first.getId()),
+                userFilmController.getLikedFilms(userId, null, 1).stream().map(Film::getId).toList());
+        assertEquals(List.of(third.getId()),
+                userFilmController.getLikedFilms(userId, first.getId(), 10).stream().map(Film::getId).toList());
+        assertThrows(NotFoundException.class, () -> userFilmController.getLikedFilms(userId + 1, null, null));
+    }
+
     @Test
     void findById_ShouldReturnFilm_WhenExists() {
         Film addedFilm = filmController.add(validFilm);
@@ -114,4 +183,13 @@ class FilmControllerTest {
     void findById_ShouldThrowException_WhenNotFound() {
         assertThrows(NotFoundException.class, () -> filmController.findById(123L));
     }
+
+    private Film copyOf(Film film) {
+        Film copy = new Film();
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        return copy;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class MetricsEndpointTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheus_ShouldExposeTimersGaugesAndErrorCounters() throws Exception {
+        mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Фильм\",\"releaseDate\":\"2000-01-01\",\"duration\":90}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/films/100")).andExpect(status().isNotFound());
+
+        String metrics = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(metrics.contains("filmorate_entities{type=\"film\",} 1.0"), metrics);
+        assertTrue(metrics.contains("filmorate_errors_total{type=\"not_found\",} 1.0"));
+        assertTrue(metrics.contains("filmorate_service_seconds_bucket{class=\"ru.yandex.practicum.filmorate.service.FilmService\""));
+        assertTrue(metrics.contains("method=\"addFilm\""));
+        assertTrue(metrics.contains("filmorate_storage_seconds_count"));
+        assertTrue(metrics.contains("exception=\"NotFoundException\""));
+        assertTrue(metrics.contains("status=\"404\""));
+    }
+}
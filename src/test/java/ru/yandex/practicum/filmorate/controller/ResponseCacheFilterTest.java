@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ResponseCacheFilterTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void findById_ShouldAnswerNotModified_AndRefreshAfterLike() throws Exception {
+        mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Фильм\",\"releaseDate\":\"2000-01-01\",\"duration\":90}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"login\":\"user\",\"email\":\"user@ya.ru\",\"birthday\":\"2000-01-01\"}"))
+                .andExpect(status().isOk());
+
+        String etag = mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likesCount").value(0))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/films/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(jsonPath("$[0].likesCount").value(0));
+
+        mockMvc.perform(put("/films/1/like/1")).andExpect(status().isOk());
+
+        String updatedEtag = mockMvc.perform(get("/films/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likesCount").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, updatedEtag);
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(jsonPath("$[0].likesCount").value(1));
+    }
+
+    @Test
+    void findById_ShouldRefreshUser_AfterUpdate() throws Exception {
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"login\":\"user\",\"email\":\"user@ya.ru\",\"birthday\":\"2000-01-01\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/1")).andExpect(jsonPath("$.login").value("user"));
+
+        mockMvc.perform(put("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":1,\"login\":\"renamed\",\"email\":\"user@ya.ru\",\"birthday\":\"2000-01-01\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/1")).andExpect(jsonPath("$.login").value("renamed"));
+        assertEquals(404, mockMvc.perform(get("/users/2")).andReturn().getResponse().getStatus());
+    }
+}
@@ -1,18 +1,26 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ServiceFixtures;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -26,8 +34,9 @@ class UserControllerTest {
     @BeforeEach
     void setUp() {
         userStorage = new InMemoryUserStorage();
-        userService = new UserService(userStorage);
-        userController = new UserController(userService);
+        userService = ServiceFixtures.userService(userStorage);
+        userController = new UserController(userService, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator());
         validUser = new User();
         validUser.setLogin("validLogin");
         validUser.setEmail("test@yandex.ru");
@@ -38,6 +47,14 @@ class UserControllerTest {
         return userController.add(validUser);
     }
 
+    private User copyWithEmail(String email) {
+        User user = new User();
+        user.setLogin("copy");
+        user.setEmail(email);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
     @Test
     void add_ShouldSetLoginAsName_WhenNameIsBlank() {
         validUser.setName(" ");
@@ -88,6 +105,51 @@ class UserControllerTest {
         assertEquals("Email second@ya.ru уже используется", exception.getMessage());
     }
 
+    @Test
+    void add_ShouldAcceptOnlyOneUser_WhenSameEmailRegisteredConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                User user = new User();
+                user.setLogin("login" + index);
+                user.setEmail(index % 2 == 0 ? "same@ya.ru" : "SAME@ya.ru");
+                user.setBirthday(LocalDate.of(2000, 1, 1));
+                try {
+                    userController.add(user);
+                    return true;
+                } catch (ValidationException e) {
+                    return false;
+                }
+            }));
+        }
+        int created = 0;
+        for (Future<Boolean> future : futures) {
+            created += future.get() ? 1 : 0;
+        }
+        executor.shutdown();
+        assertEquals(1, created);
+        assertEquals(1, userController.findAll().size());
+    }
+
+    @Test
+    void update_ShouldReleasePreviousEmail_WhenEmailChanged() {
+        User addedUser = addUser();
+        User updateUser = new User();
+        updateUser.setId(addedUser.getId());
+        updateUser.setLogin("validLogin");
+        updateUser.setEmail("changed@ya.ru");
+        userController.update(updateUser);
+
+        User secondUser = new User();
+        secondUser.setLogin("secondUser");
+        secondUser.setEmail("TEST@yandex.ru");
+        secondUser.setBirthday(LocalDate.of(1990, 1, 1));
+        assertNotNull(userController.add(secondUser).getId());
+        assertThrows(ValidationException.class, () -> userService.addUser(copyWithEmail("Changed@ya.ru")));
+    }
+
     @Test
     void addFriend_ShouldAddFriend_WhenUsersExist() {
         User user1 = new User();
@@ -110,6 +172,89 @@ class UserControllerTest {
         assertTrue(user2FromStorage.getFriends().contains(savedUser1.getId()));
     }
 
+    @Test
+    void addFriend_ShouldKeepFriendshipSymmetric_WhenCalledConcurrently() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@ya.ru");
+            user.setBirthday(LocalDate.of(2000, 1, 1));
+            ids.add(userController.add(user).getId());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            int seed = thread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    long userId = ids.get((seed + i) % ids.size());
+                    long friendId = ids.get((seed * 3 + i * 7 + 1) % ids.size());
+                    if (userId == friendId) {
+                        continue;
+                    }
+                    try {
+                        userController.addFriend(userId, friendId);
+                    } catch (ValidationException e) {
+                        userController.deleteFriend(friendId, userId);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        for (Long userId : ids) {
+            for (Long friendId : userController.findById(userId).getFriends()) {
+                assertTrue(userController.findById(friendId).getFriends().contains(userId));
+            }
+        }
+    }
+
+    @Test
+    void getCommonFriends_ShouldReturnSharedFriendsOrderedById() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(userController.add(copyWithEmail("friend" + i + "@ya.ru")).getId());
+        }
+        userController.addFriend(ids.get(0), ids.get(4));
+        userController.addFriend(ids.get(0), ids.get(2));
+        userController.addFriend(ids.get(0), ids.get(3));
+        userController.addFriend(ids.get(1), ids.get(4));
+        userController.addFriend(ids.get(1), ids.get(2));
+
+        assertEquals(List.of(ids.get(2), ids.get(3), ids.get(4)),
+                userController.getFriends(ids.get(0)).stream().map(User::getId).toList());
+        assertEquals(List.of(ids.get(2), ids.get(4)),
+                userController.getCommonFriends(ids.get(0), ids.get(1)).stream().map(User::getId).toList());
+    }
+
+    @Test
+    void getRecommendations_ShouldRankByMutualFriends_AndRefreshAfterFriendChange() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(userController.add(copyWithEmail("graph" + i + "@ya.ru")).getId());
+        }
+        userController.addFriend(ids.get(0), ids.get(1));
+        userController.addFriend(ids.get(0), ids.get(2));
+        userController.addFriend(ids.get(1), ids.get(3));
+        userController.addFriend(ids.get(2), ids.get(3));
+        userController.addFriend(ids.get(1), ids.get(4));
+
+        assertEquals(List.of(ids.get(3), ids.get(4)),
+                userController.getRecommendations(ids.get(0), null).stream().map(User::getId).toList());
+        assertEquals(List.of(ids.get(3)),
+                userController.getRecommendations(ids.get(0), 1).stream().map(User::getId).toList());
+
+        userController.addFriend(ids.get(3), ids.get(0));
+
+        assertEquals(List.of(ids.get(4)),
+                userController.getRecommendations(ids.get(0), null).stream().map(User::getId).toList());
+        assertThrows(ValidationException.class, () -> userController.getRecommendations(ids.get(0), 0));
+    }
+
     @Test
     void findAll_ShouldReturnAllUsers() {
         User user1 = new User();
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class FilmRecommenderTest {
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    private final FilmRecommender filmRecommender = new FilmRecommender(filmStorage, Duration.ofMinutes(1));
+
+    @Test
+    void recommend_ShouldRankFilmsBySimilarityOfNeighbours() {
+        long shared = likedBy("Общий", 1, 2);
+        likedBy("Всеми", 1, 2, 3);
+        long closeTaste = likedBy("Близкий вкус", 2);
+        long distantTaste = likedBy("Далёкий вкус", 3);
+        likedBy("Без лайков");
+
+        filmRecommender.refresh();
+
+        assertArrayEquals(new long[]{closeTaste, distantTaste}, filmRecommender.recommend(1, 10));
+        assertArrayEquals(new long[]{closeTaste}, filmRecommender.recommend(1, 1));
+        assertArrayEquals(new long[]{shared}, filmRecommender.recommend(3, 1));
+        assertArrayEquals(new long[0], filmRecommender.recommend(99, 10));
+    }
+
+    private long likedBy(String name, long... userIds) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        long filmId = filmStorage.add(film).getId();
+        for (long userId : userIds) {
+            filmStorage.addLike(filmId, userId);
+        }
+        return filmId;
+    }
+}
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.LikeChanges;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LikeIngestionTest {
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+
+    @Test
+    void submit_ShouldDetectDuplicatesBeforeApplying_AndRejectWhenQueueFull() {
+        Film film = filmStorage.add(film("Премьера"));
+        LikeIngestion likeIngestion = ServiceFixtures.likeIngestion(filmStorage, 2, 16);
+
+        assertTrue(likeIngestion.submit(film, 1, true));
+        assertFalse(likeIngestion.submit(film, 1, true));
+        assertFalse(likeIngestion.submit(film, 2, false));
+        assertTrue(likeIngestion.submit(film, 1, false));
+        assertThrows(TooManyRequestsException.class, () -> likeIngestion.submit(film, 2, true));
+        assertTrue(filmStorage.getById(film.getId()).getLikes().isEmpty());
+
+        likeIngestion.stop();
+
+        assertTrue(filmStorage.getById(film.getId()).getLikes().isEmpty());
+        assertTrue(likeIngestion.submit(film, 2, true));
+    }
+
+    @Test
+    void stop_ShouldApplyQueuedLikesToPopularityRanking() {
+        Film first = filmStorage.add(film("Первый"));
+        Film second = filmStorage.add(film("Второй"));
+        TrendingFilms trendingFilms = ServiceFixtures.trendingFilms();
+        LikeIngestion likeIngestion = new LikeIngestion(filmStorage, ServiceFixtures.disabledCache(), trendingFilms,
+                1024, 16);
+        likeIngestion.start();
+        for (long userId = 1; userId <= 100; userId++) {
+            likeIngestion.submit(second, userId, true);
+        }
+        likeIngestion.submit(first, 1, true);
+
+        likeIngestion.stop();
+
+        assertEquals(100, filmStorage.getById(second.getId()).getLikesCount());
+        assertEquals(Set.of(1L), filmStorage.getById(first.getId()).getLikes());
+        assertEquals(List.of(second.getId(), first.getId()),
+                filmStorage.getPopular(2).stream().map(Film::getId).toList());
+        assertArrayEquals(new long[]{second.getId(), first.getId()}, trendingFilms.top(TrendingFilms.Window.HOUR, 10));
+    }
+
+    @Test
+    void stop_ShouldRetryFailedBatches_AndDropThemAfterRepeatedFailures() {
+        Film flaky = filmStorage.add(film("Со сбоем"));
+        Film broken = filmStorage.add(film("Недоступный"));
+        int[] flakyFailures = {1};
+        FilmStorage failingStorage = new InMemoryFilmStorage() {
+            @Override
+            public LikeChanges applyLikeChanges(Long filmId, Collection<Long> likedBy, Collection<Long> unlikedBy) {
+                if (filmId.equals(broken.getId()) || filmId.equals(flaky.getId()) && flakyFailures[0]-- > 0) {
+                    throw new IllegalStateException("Хранилище недоступно");
+                }
+                return filmStorage.applyLikeChanges(filmId, likedBy, unlikedBy);
+            }
+
+            @Override
+            public boolean hasLike(Long filmId, Long userId) {
+                return filmStorage.hasLike(filmId, userId);
+            }
+        };
+        LikeIngestion likeIngestion = ServiceFixtures.likeIngestion(failingStorage, 16, 16);
+        likeIngestion.submit(flaky, 1, true);
+        likeIngestion.submit(broken, 1, true);
+
+        likeIngestion.stop();
+
+        assertEquals(Set.of(1L), filmStorage.getById(flaky.getId()).getLikes());
+        assertTrue(filmStorage.getById(broken.getId()).getLikes().isEmpty());
+        assertEquals(3, likeIngestion.retriedLikes());
+        assertEquals(1, likeIngestion.droppedLikes());
+        assertEquals(0, likeIngestion.pendingCount());
+    }
+
+    private static Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+}
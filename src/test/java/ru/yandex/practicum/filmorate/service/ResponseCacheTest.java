@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResponseCacheTest {
+
+    @Test
+    void put_ShouldKeepFill_WhenAnotherFilmChanged() {
+        ResponseCache cache = new ResponseCache(1 << 20);
+        ResponseCache.Key first = cache.filmKey(1);
+        ResponseCache.Key second = cache.filmKey(2);
+        long firstStamp = cache.fillStamp(first);
+        long secondStamp = cache.fillStamp(second);
+
+        cache.invalidateFilm(2);
+        cache.put(first, firstStamp, new byte[]{1});
+        cache.put(second, secondStamp, new byte[]{2});
+
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+    }
+
+    @Test
+    void popularFilmsKey_ShouldChange_WhenFilmInListChangesOrReachesLastPlace() {
+        ResponseCache cache = new ResponseCache(1 << 20);
+        ResponseCache.Key key = cache.popularFilmsKey(2);
+        cache.trackPopularFilms(2, List.of(film(1, 5), film(2, 3)), cache.popularReadMark());
+
+        cache.invalidateFilmLikes(3, 2);
+        cache.invalidateFilm(3);
+        cache.invalidatePopularFilms();
+        assertEquals(key, cache.popularFilmsKey(2));
+
+        cache.invalidateFilmLikes(3, 3);
+        ResponseCache.Key next = cache.popularFilmsKey(2);
+        assertNotEquals(key, next);
+
+        cache.trackPopularFilms(2, List.of(film(1, 5), film(3, 3)), cache.popularReadMark());
+        cache.invalidateFilm(1);
+        assertNotEquals(next, cache.popularFilmsKey(2));
+    }
+
+    @Test
+    void trackPopularFilms_ShouldChangeKey_WhenFilmChangedAfterListWasRead() {
+        ResponseCache cache = new ResponseCache(1 << 20);
+        long readMark = cache.popularReadMark();
+        cache.invalidateFilmLikes(3, 10);
+        ResponseCache.Key key = cache.popularFilmsKey(2);
+
+        cache.trackPopularFilms(2, List.of(film(1, 5), film(2, 3)), readMark);
+
+        assertNotEquals(key, cache.popularFilmsKey(2));
+    }
+
+    private static Film film(long id, int likesCount) {
+        Film film = new Film();
+        film.setId(id);
+        film.setLikesCount(likesCount);
+        return film;
+    }
+}
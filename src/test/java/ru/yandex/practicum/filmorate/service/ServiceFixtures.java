@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Сервисы для тестов и бенчмарков без контекста Spring: без асинхронного приёма лайков и кэша ответов.
+ */
+public final class ServiceFixtures {
+
+    private ServiceFixtures() {
+    }
+
+    public static UserService userService(UserStorage userStorage) {
+        return new UserService(userStorage,
+                new FriendRecommender(userStorage, FriendRecommender.DEFAULT_MAX_CACHED_USERS), disabledCache());
+    }
+
+    public static FilmService filmService(FilmStorage filmStorage, UserService userService) {
+        return new FilmService(filmStorage, userService, Optional.empty(),
+                new FilmRecommender(filmStorage, Duration.ofMinutes(1)), disabledCache(), trendingFilms());
+    }
+
+    public static LikeIngestion likeIngestion(FilmStorage filmStorage, int queueCapacity, int batchSize) {
+        return new LikeIngestion(filmStorage, disabledCache(), trendingFilms(), queueCapacity, batchSize);
+    }
+
+    public static TrendingFilms trendingFilms() {
+        return new TrendingFilms(Clock.systemUTC(), TrendingFilms.DEFAULT_MAX_FILMS);
+    }
+
+    public static ResponseCache disabledCache() {
+        return new ResponseCache(0);
+    }
+}
@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.service.TrendingFilms.Window;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrendingFilmsTest {
+
+    @Test
+    void top_ShouldForgetLikesOutsideWindow() {
+        MutableClock clock = new MutableClock();
+        TrendingFilms trending = new TrendingFilms(clock, 100);
+        trending.recordLike(1);
+        trending.recordLike(1);
+        clock.advance(Duration.ofMinutes(30));
+        trending.recordLike(2);
+        trending.recordLike(2);
+        trending.recordLike(2);
+        trending.recordLike(3);
+
+        assertArrayEquals(new long[]{2, 1, 3}, trending.top(Window.HOUR, 10));
+        assertArrayEquals(new long[]{2, 1}, trending.top(Window.DAY, 2));
+
+        clock.advance(Duration.ofMinutes(40));
+        assertArrayEquals(new long[]{2, 3}, trending.top(Window.HOUR, 10));
+        assertArrayEquals(new long[]{2, 1, 3}, trending.top(Window.WEEK, 10));
+
+        clock.advance(Duration.ofDays(8));
+        assertArrayEquals(new long[0], trending.top(Window.WEEK, 10));
+        assertEquals(0, trending.trackedFilms(Window.WEEK));
+    }
+
+    @Test
+    void recordUnlike_ShouldSubtractFromRecentBuckets_AndIgnoreOlderLikes() {
+        MutableClock clock = new MutableClock();
+        TrendingFilms trending = new TrendingFilms(clock, 100);
+        trending.recordLike(1);
+        clock.advance(Duration.ofMinutes(10));
+        trending.recordLike(2);
+        trending.recordUnlike(1);
+
+        assertArrayEquals(new long[]{2}, trending.top(Window.HOUR, 10));
+
+        clock.advance(Duration.ofHours(2));
+        trending.recordUnlike(2);
+        assertArrayEquals(new long[0], trending.top(Window.HOUR, 10));
+        assertArrayEquals(new long[0], trending.top(Window.DAY, 10));
+    }
+
+    @Test
+    void recordLike_ShouldEvictLastFilm_WhenWindowIsFull() {
+        MutableClock clock = new MutableClock();
+        TrendingFilms trending = new TrendingFilms(clock, 2);
+        trending.recordLike(1);
+        trending.recordLike(1);
+        trending.recordLike(2);
+        clock.advance(Duration.ofMinutes(30));
+        trending.recordLike(3);
+
+        assertArrayEquals(new long[]{1, 3}, trending.top(Window.HOUR, 10));
+        assertEquals(1, trending.evictedFilms(Window.HOUR));
+
+        // Унаследованный лайк истекает вместе с корзиной вытесненного фильма
+        clock.advance(Duration.ofMinutes(40));
+        assertArrayEquals(new long[]{3}, trending.top(Window.HOUR, 10));
+        assertArrayEquals(new long[]{1, 3}, trending.top(Window.DAY, 10));
+    }
+
+    @Test
+    void record_ShouldApplyBufferedChangesFromAllThreads() throws Exception {
+        TrendingFilms trending = new TrendingFilms(new MutableClock(), 100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                writers.add(executor.submit(() -> {
+                    for (long filmId = 1; filmId <= 20; filmId++) {
+                        for (int like = 0; like < filmId * 10; like++) {
+                            trending.recordLike(filmId);
+                        }
+                        trending.record(filmId, -5);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertArrayEquals(LongStream.iterate(20, id -> id - 1).limit(20).toArray(), trending.top(Window.DAY, 100));
+        assertEquals(20, trending.trackedFilms(Window.WEEK));
+    }
+
+    @Test
+    void record_ShouldCancelLike_WithUnlikeFromAnotherThread() throws Exception {
+        TrendingFilms trending = new TrendingFilms(new MutableClock(), 100);
+        Runnable like = () -> trending.recordLike(1);
+        Runnable unlike = () -> trending.recordUnlike(1);
+        Thread liker = Thread.ofPlatform().unstarted(like);
+        Thread unliker = Thread.ofPlatform().unstarted(unlike);
+        // Снятие пишется в полосу буфера (ID потока по модулю 16) с меньшим номером, чем полоса самого лайка
+        while ((unliker.threadId() & 15) >= (liker.threadId() & 15)) {
+            if ((liker.threadId() & 15) == 0) {
+                liker = Thread.ofPlatform().unstarted(like);
+            }
+            unliker = Thread.ofPlatform().unstarted(unlike);
+        }
+        trending.recordLike(2);
+
+        liker.start();
+        liker.join();
+        unliker.start();
+        unliker.join();
+
+        assertArrayEquals(new long[]{2}, trending.top(Window.HOUR, 10));
+        assertEquals(1, trending.trackedFilms(Window.HOUR));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkedIdMapTest {
+
+    @Test
+    void higherId_ShouldSkipEmptyChunks_InIdOrder() {
+        ChunkedIdMap<String> map = new ChunkedIdMap<>();
+        map.put(3, "a");
+        map.put(1_000_000, "b");
+        map.put(4095, "c");
+
+        assertEquals(3, map.higherId(Long.MIN_VALUE));
+        assertEquals(4095, map.higherId(3));
+        assertEquals(1_000_000, map.higherId(4095));
+        assertEquals(-1, map.higherId(1_000_000));
+        assertNull(map.get(4096));
+        assertNull(map.get(-1));
+        assertNull(map.get(Long.MAX_VALUE));
+    }
+
+    @Test
+    void putIfAbsentAndReplace_ShouldKeepFirstValue() {
+        ChunkedIdMap<String> map = new ChunkedIdMap<>();
+
+        assertNull(map.putIfAbsent(5, "first"));
+        assertEquals("first", map.putIfAbsent(5, "second"));
+        assertFalse(map.replace(5, "second", "third"));
+        assertTrue(map.replace(5, "first", "third"));
+        assertEquals("third", map.get(5));
+    }
+
+    @Test
+    void put_ShouldNotLoseValues_WhenDirectoryGrowsConcurrently() throws Exception {
+        ChunkedIdMap<Long> map = new ChunkedIdMap<>();
+        int threads = 4;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long offset = t;
+                futures.add(executor.submit(() -> {
+                    for (long i = 0; i < perThread; i++) {
+                        long id = i * threads + offset + 1;
+                        map.put(id, id);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        long count = 0;
+        for (long id = map.higherId(0); id >= 0; id = map.higherId(id)) {
+            assertEquals(id, map.get(id));
+            count++;
+        }
+        assertEquals((long) threads * perThread, count);
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.JdbcUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@ActiveProfiles("jdbc")
+@Import({JdbcFilmStorage.class, JdbcUserStorage.class})
+class JdbcStorageTest {
+    @Autowired
+    private JdbcFilmStorage filmStorage;
+
+    @Autowired
+    private JdbcUserStorage userStorage;
+
+    @Test
+    void getPopular_ShouldOrderByLikesInDatabase() {
+        User first = userStorage.add(user("first@ya.ru"));
+        User second = userStorage.add(user("second@ya.ru"));
+        Film unpopular = filmStorage.add(film("Без лайков"));
+        Film popular = filmStorage.add(film("Популярный"));
+        Film liked = filmStorage.add(film("С лайком"));
+        assertTrue(filmStorage.addLike(popular.getId(), first.getId()));
+        assertTrue(filmStorage.addLike(popular.getId(), second.getId()));
+        assertTrue(filmStorage.addLike(liked.getId(), first.getId()));
+        assertFalse(filmStorage.addLike(liked.getId(), first.getId()));
+
+        List<Film> films = filmStorage.getPopular(3);
+
+        assertEquals(List.of(popular.getId(), liked.getId(), unpopular.getId()),
+                films.stream().map(Film::getId).toList());
+        assertEquals(2, films.getFirst().getLikesCount());
+        assertTrue(films.getFirst().toString().contains("likesCount=2"));
+        assertEquals(2, filmStorage.getById(popular.getId()).getLikesCount());
+        assertEquals(Set.of(first.getId(), second.getId()), filmStorage.stream()
+                .filter(film -> film.getId().equals(popular.getId())).findFirst().orElseThrow().getLikes());
+        assertTrue(filmStorage.hasLike(liked.getId(), first.getId()));
+        assertFalse(filmStorage.hasLike(liked.getId(), second.getId()));
+        assertEquals(Set.of(popular.getId()),
+                filmStorage.findLikedFilmIds(second.getId(), List.of(popular.getId(), liked.getId())));
+        assertEquals(List.of(popular.getId(), liked.getId()), filmStorage.findLikedFilmIds(first.getId(), 0, 10));
+        assertEquals(List.of(liked.getId()), filmStorage.findLikedFilmIds(first.getId(), popular.getId(), 10));
+
+        assertTrue(filmStorage.removeLike(popular.getId(), first.getId()));
+        assertEquals(new LikeChanges(1, 0, 2),
+                filmStorage.applyLikeChanges(liked.getId(), List.of(second.getId(), first.getId()), List.of()));
+        assertEquals(List.of(liked.getId(), popular.getId()),
+                filmStorage.getPopular(2).stream().map(Film::getId).toList());
+        assertEquals(List.of(2, 1), filmStorage.getPopular(2).stream().map(Film::getLikesCount).toList());
+    }
+
+    @Test
+    void addFriend_ShouldStoreBothSides() {
+        User first = userStorage.add(user("first@ya.ru"));
+        User second = userStorage.add(user("second@ya.ru"));
+
+        assertTrue(userStorage.addFriend(first.getId(), second.getId()));
+        assertFalse(userStorage.addFriend(second.getId(), first.getId()));
+
+        assertEquals(Set.of(second.getId()), userStorage.getById(first.getId()).getFriends());
+        assertEquals(Set.of(first.getId()), userStorage.getById(second.getId()).getFriends());
+        assertTrue(userStorage.removeFriend(second.getId(), first.getId()));
+        assertTrue(userStorage.getById(first.getId()).getFriends().isEmpty());
+    }
+
+    @Test
+    void add_ShouldRejectDuplicateEmailIgnoringCase() {
+        User first = userStorage.add(user("first@ya.ru"));
+
+        assertThrows(ValidationException.class, () -> userStorage.add(user("FIRST@ya.ru")));
+        assertEquals(first.getId(), userStorage.findIdByEmail("First@Ya.ru").orElseThrow());
+        assertThrows(NotFoundException.class, () -> userStorage.getById(first.getId() + 100));
+    }
+
+    @Test
+    void addAll_ShouldAssignIdsInOrder_AndSkipTakenEmails() {
+        User existing = userStorage.add(user("first@ya.ru"));
+
+        List<User> users = userStorage.addAll(List.of(user("second@ya.ru"), user("FIRST@ya.ru"),
+                user("third@ya.ru"), user("Second@ya.ru")));
+        List<Film> films = filmStorage.addAll(List.of(film("Первый"), film("Второй")));
+
+        assertTrue(users.get(0).getId() > existing.getId());
+        assertNull(users.get(1).getId());
+        assertTrue(users.get(2).getId() > users.get(0).getId());
+        assertNull(users.get(3).getId());
+        assertEquals(users.get(2).getId(), userStorage.findIdByEmail("third@ya.ru").orElseThrow());
+        assertEquals("Второй", filmStorage.getById(films.get(1).getId()).getName());
+        assertEquals(2, filmStorage.count());
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setLogin(email.substring(0, email.indexOf('@')));
+        user.setName("Пользователь");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    private static Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdGenerator;
+import ru.yandex.practicum.filmorate.storage.persistence.MutationLog;
+import ru.yandex.practicum.filmorate.util.LongSet;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapEdgeStoreTest {
+    private static final long SEGMENT_SIZE = 64 * 1024;
+
+    @Test
+    void addAndRemove_ShouldGrowAndShrinkBlocks_AndReuseFreedMemory() {
+        OffHeapEdgeStore store = new OffHeapEdgeStore(SEGMENT_SIZE, 16 * SEGMENT_SIZE, 4);
+        for (long value = 1000; value > 0; value--) {
+            assertTrue(store.add(7, value));
+        }
+        assertFalse(store.add(7, 500));
+
+        assertEquals(SortedLongSet.of(LongStream.rangeClosed(1, 1000).toArray()), store.get(7));
+        assertEquals(1024 * 8, store.usedBytes());
+        for (long value = 1; value <= 990; value++) {
+            assertTrue(store.remove(7, value));
+        }
+        assertFalse(store.contains(7, 990));
+        assertTrue(store.contains(7, 991));
+        assertEquals(10, store.size(7));
+        assertEquals(32 * 8, store.usedBytes());
+
+        long allocated = store.allocatedBytes();
+        for (long value = 1; value <= 990; value++) {
+            store.add(7, value);
+        }
+        assertEquals(allocated, store.allocatedBytes());
+        assertEquals(0, store.size(8));
+    }
+
+    @Test
+    void adopt_ShouldCopyHeapSetOnce_AndIgnoreStaleCopies() {
+        OffHeapEdgeStore store = new OffHeapEdgeStore(SEGMENT_SIZE, 4 * SEGMENT_SIZE, 2);
+        SortedLongSet heapSet = SortedLongSet.of(3, 1, 2);
+
+        LongSet adopted = store.adopt(5, heapSet);
+        LongSet updated = adopted.with(4);
+
+        assertSame(updated, store.adopt(5, updated));
+        assertSame(updated, updated.with(4));
+        assertEquals(SortedLongSet.of(1, 2, 3, 4), store.adopt(5, heapSet).snapshot());
+        assertEquals(SortedLongSet.of(2, 4, 9),
+                updated.withChanges(SortedLongSet.of(9), SortedLongSet.of(1, 3)).snapshot());
+    }
+
+    @Test
+    void add_ShouldFail_WhenMaxSizeIsReached() {
+        OffHeapEdgeStore store = new OffHeapEdgeStore(SEGMENT_SIZE, 2 * SEGMENT_SIZE, 2);
+        // Первый фрагмент индекса занимает 64KB, остаётся один сегмент на 4096 блоков по два значения
+        for (long ownerId = 0; ownerId < 4096; ownerId++) {
+            store.add(ownerId, 1);
+        }
+
+        assertTrue(store.add(4095, 2));
+        assertThrows(IllegalStateException.class, () -> store.add(4095, 3));
+        assertEquals(SortedLongSet.of(1, 2), store.get(4095));
+        assertThrows(IllegalArgumentException.class, () -> store.add(-1, 1));
+    }
+
+    @Test
+    void get_ShouldReturnConsistentLists_WhileWriterRelocatesThem() throws Exception {
+        OffHeapEdgeStore store = new OffHeapEdgeStore(SEGMENT_SIZE, 64 * SEGMENT_SIZE, 2);
+        int values = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (long value = 1; value <= values; value++) {
+                    store.add(1, value);
+                }
+                for (long value = values; value > 0; value--) {
+                    store.remove(1, value);
+                }
+            });
+            Future<?> reader = executor.submit(() -> {
+                while (!writer.isDone()) {
+                    long[] snapshot = store.get(1).toLongArray();
+                    for (int i = 0; i < snapshot.length; i++) {
+                        assertEquals(i + 1, snapshot[i]);
+                    }
+                }
+            });
+            writer.get();
+            reader.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(0, store.size(1));
+    }
+
+    @Test
+    void filmStorage_ShouldKeepLikesOffHeap() {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage(new SequenceIdGenerator(), MutationLog.NOOP,
+                new OffHeapEdgeStore(SEGMENT_SIZE, 16 * SEGMENT_SIZE, 4),
+                new OffHeapEdgeStore(SEGMENT_SIZE, 16 * SEGMENT_SIZE, 4));
+        Film first = storage.add(film("Первый"));
+        Film second = storage.add(film("Второй"));
+
+        assertTrue(storage.addLike(second.getId(), 10L));
+        assertTrue(storage.addLike(second.getId(), 11L));
+        assertTrue(storage.addLike(first.getId(), 10L));
+        assertFalse(storage.addLike(first.getId(), 10L));
+        assertEquals(new LikeChanges(1, 1, 1),
+                storage.applyLikeChanges(first.getId(), List.of(12L), List.of(10L, 11L)));
+
+        assertFalse(second.likeSet() instanceof SortedLongSet);
+        assertEquals(2, second.getLikesCount());
+        assertTrue(second.hasLike(11L));
+        assertEquals(SortedLongSet.of(12), first.getLikes());
+        assertEquals(List.of(second.getId(), first.getId()), storage.getPopular(2).stream().map(Film::getId).toList());
+        assertEquals(List.of(second.getId()), storage.findLikedFilmIds(10, 0, 10));
+        assertEquals(3, storage.likesCount());
+    }
+
+    private static Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(90);
+        return film;
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.storage.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RangeIdGeneratorTest {
+
+    @Test
+    void nextId_ShouldReturnUniqueIds_WhenCalledConcurrently() throws Exception {
+        RangeIdGenerator generator = new RangeIdGenerator(new PartitionedIdBlockSource(0, 1), 16);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertEquals(80_000, ids.size());
+    }
+
+    @Test
+    void reserve_ShouldGiveDisjointRanges_ToDifferentNodes() {
+        RangeIdGenerator first = new RangeIdGenerator(new PartitionedIdBlockSource(0, 2), 10);
+        RangeIdGenerator second = new RangeIdGenerator(new PartitionedIdBlockSource(1, 2), 10);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(ids.add(first.nextId()));
+            assertTrue(ids.add(second.nextId()));
+        }
+        assertEquals(1L, new RangeIdGenerator(new PartitionedIdBlockSource(0, 2), 10).nextId());
+        assertEquals(11L, new RangeIdGenerator(new PartitionedIdBlockSource(1, 2), 10).nextId());
+    }
+}
@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdGenerator;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistenceManagerTest {
+    @TempDir
+    private Path directory;
+
+    private WriteAheadLog writeAheadLog;
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private PersistenceManager persistenceManager;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        writeAheadLog.close();
+    }
+
+    @Test
+    void recover_ShouldReplayLog_WhenNoSnapshotTaken() throws IOException {
+        open();
+        User first = userStorage.add(user("first@ya.ru"));
+        User second = userStorage.add(user("second@ya.ru"));
+        userStorage.addFriend(first.getId(), second.getId());
+        Film film = filmStorage.add(film("Первый"));
+        filmStorage.addLike(film.getId(), first.getId());
+        filmStorage.addLike(film.getId(), second.getId());
+        filmStorage.removeLike(film.getId(), first.getId());
+        Film update = film("Обновлённый");
+        update.setId(film.getId());
+        update.setDescription(null);
+        filmStorage.update(update);
+        writeAheadLog.close();
+
+        open();
+        Film restoredFilm = filmStorage.getById(film.getId());
+        assertEquals("Обновлённый", restoredFilm.getName());
+        assertNull(restoredFilm.getDescription());
+        assertEquals(Set.of(second.getId()), restoredFilm.getLikes());
+        assertEquals(Set.of(second.getId()), userStorage.getById(first.getId()).getFriends());
+        assertEquals(first.getId(), userStorage.findIdByEmail("FIRST@ya.ru").orElseThrow());
+        assertEquals(3L, userStorage.add(user("third@ya.ru")).getId());
+    }
+
+    @Test
+    void recover_ShouldCombineSnapshotWithNewerLog() throws IOException {
+        open();
+        User first = userStorage.add(user("first@ya.ru"));
+        User second = userStorage.add(user("second@ya.ru"));
+        Film film = filmStorage.add(film("Фильм"));
+        filmStorage.addLike(film.getId(), first.getId());
+        persistenceManager.snapshot();
+        userStorage.addFriend(first.getId(), second.getId());
+        filmStorage.addLike(film.getId(), second.getId());
+        writeAheadLog.close();
+
+        open();
+        assertEquals(Set.of(first.getId(), second.getId()), filmStorage.getById(film.getId()).getLikes());
+        assertTrue(userStorage.getById(second.getId()).getFriends().contains(first.getId()));
+        assertEquals(List.of(film.getId()), filmStorage.getPopular(1).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void recover_ShouldServeArchivedEntities_WhenSnapshotAttached() throws IOException {
+        open();
+        User first = userStorage.add(user("first@ya.ru"));
+        User second = userStorage.add(user("second@ya.ru"));
+        userStorage.addFriend(first.getId(), second.getId());
+        Film film = filmStorage.add(film("Фильм"));
+        filmStorage.addLike(film.getId(), second.getId());
+        persistenceManager.snapshot();
+        writeAheadLog.close();
+
+        open();
+        User third = userStorage.add(user("third@ya.ru"));
+        assertEquals(List.of(first.getId(), second.getId(), third.getId()),
+                userStorage.findAll().stream().map(User::getId).toList());
+        assertEquals(List.of(third.getId()),
+                userStorage.findPage(second.getId(), 10).stream().map(User::getId).toList());
+        assertEquals(Set.of(first.getId()), userStorage.getById(second.getId()).getFriends());
+        assertEquals(Set.of(second.getId()), filmStorage.getById(film.getId()).getLikes());
+        assertEquals("Описание", filmStorage.getById(film.getId()).getDescription());
+        assertEquals(first.getId(), userStorage.findIdByEmail("First@Ya.ru").orElseThrow());
+        assertThrows(ValidationException.class, () -> userStorage.add(user("SECOND@ya.ru")));
+        assertEquals(List.of(film.getId()), filmStorage.getPopular(1).stream().map(Film::getId).toList());
+        assertEquals(List.of(film.getId()), filmStorage.findLikedFilmIds(second.getId(), 0, 10));
+        Film secondFilm = filmStorage.add(film("Второй"));
+        filmStorage.addLike(secondFilm.getId(), second.getId());
+        assertEquals(List.of(film.getId(), secondFilm.getId()), filmStorage.findLikedFilmIds(second.getId(), 0, 10));
+    }
+
+    @Test
+    void recover_ShouldDropTornTail_WhenLastRecordIncomplete() throws IOException {
+        open();
+        User first = userStorage.add(user("first@ya.ru"));
+        userStorage.add(user("second@ya.ru"));
+        long segment = writeAheadLog.currentSegment();
+        writeAheadLog.close();
+        Path segmentFile = WriteAheadLog.segmentPath(directory, segment);
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        open();
+        assertEquals(1, userStorage.findAll().size());
+        assertEquals(first.getEmail(), userStorage.getById(first.getId()).getEmail());
+    }
+
+    private void open() throws IOException {
+        writeAheadLog = new WriteAheadLog(directory, Duration.ofMillis(1), true);
+        filmStorage = new InMemoryFilmStorage(new SequenceIdGenerator(), writeAheadLog);
+        userStorage = new InMemoryUserStorage(new SequenceIdGenerator(), writeAheadLog);
+        persistenceManager = new PersistenceManager(writeAheadLog, filmStorage, userStorage, directory,
+                Duration.ofHours(1));
+        persistenceManager.recover();
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setLogin(email.substring(0, email.indexOf('@')));
+        user.setName("Пользователь");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    private static Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferedLongSetTest {
+
+    @Test
+    void with_ShouldBufferChangesOfLargeSets_AndCopySmallOnes() {
+        SortedLongSet small = SortedLongSet.of(1, 2, 3);
+        assertInstanceOf(SortedLongSet.class, BufferedLongSet.with(small, 4));
+
+        SortedLongSet large = SortedLongSet.ofSorted(LongStream.rangeClosed(1, 10_000).map(i -> i * 2).toArray());
+        LongSet updated = BufferedLongSet.with(large, 3);
+        assertInstanceOf(BufferedLongSet.class, updated);
+        assertSame(updated, updated.with(3));
+        assertSame(updated, updated.without(5));
+        assertSame(large, BufferedLongSet.with(large, 2));
+
+        LongSet changed = updated.without(3).without(2).with(2).without(4);
+        assertEquals(9_999, changed.size());
+        assertTrue(changed.contains(2));
+        assertFalse(changed.contains(3));
+        assertFalse(changed.contains(4));
+        assertEquals(large.without(4), changed.snapshot());
+    }
+
+    @Test
+    void with_ShouldMatchSortedSet_AfterManyRandomChanges() {
+        SplittableRandom random = new SplittableRandom(42);
+        TreeSet<Long> expected = new TreeSet<>();
+        LongSet actual = SortedLongSet.EMPTY;
+        for (int i = 0; i < 50_000; i++) {
+            long value = random.nextLong(4000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), BufferedLongSet.without(actual, value) != actual);
+                actual = BufferedLongSet.without(actual, value);
+            } else {
+                assertEquals(expected.add(value), BufferedLongSet.with(actual, value) != actual);
+                actual = BufferedLongSet.with(actual, value);
+            }
+            assertEquals(expected.size(), actual.size());
+        }
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), actual.snapshot().toLongArray());
+    }
+}
@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SortedLongSetTest {
+
+    @Test
+    void withAndWithout_ShouldKeepValuesSortedAndUnique() {
+        SortedLongSet set = SortedLongSet.EMPTY.with(5).with(1).with(3);
+        assertSame(set, set.with(3));
+        assertArrayEquals(new long[]{1, 3, 5}, set.toLongArray());
+        SortedLongSet withoutThree = set.without(3);
+        assertArrayEquals(new long[]{1, 5}, withoutThree.toLongArray());
+        assertTrue(set.contains(3L));
+        assertFalse(withoutThree.contains(3L));
+    }
+
+    @Test
+    void intersect_ShouldReturnCommonValues_WhenMerging() {
+        SortedLongSet first = SortedLongSet.of(1, 2, 3, 4, 8);
+        SortedLongSet second = SortedLongSet.of(2, 4, 6, 8, 10);
+        assertArrayEquals(new long[]{2, 4, 8}, first.intersect(second).toLongArray());
+    }
+
+    @Test
+    void intersect_ShouldReturnCommonValues_WhenSizesDiffer() {
+        SortedLongSet small = SortedLongSet.of(7, 500, 999, 5000);
+        SortedLongSet large = SortedLongSet.of(LongStream.range(0, 1000).toArray());
+        assertArrayEquals(new long[]{7, 500, 999}, small.intersect(large).toLongArray());
+        assertArrayEquals(new long[]{7, 500, 999}, large.intersect(small).toLongArray());
+    }
+
+    @Test
+    void withChanges_ShouldMergeBatch_AndPreferRemoval() {
+        SortedLongSet set = SortedLongSet.of(2, 4, 6);
+        assertArrayEquals(new long[]{1, 2, 5, 6, 9},
+                set.withChanges(SortedLongSet.of(9, 1, 5, 7), SortedLongSet.of(4, 7, 8)).toLongArray());
+        assertSame(set, set.withChanges(SortedLongSet.of(2, 6), SortedLongSet.of(3)));
+        assertSame(SortedLongSet.EMPTY, set.withChanges(SortedLongSet.EMPTY, set));
+    }
+
+    @Test
+    void equals_ShouldFollowSetContract() {
+        assertEquals(Set.of(1L, 2L), SortedLongSet.of(2, 1));
+        assertEquals(SortedLongSet.of(2, 1), Set.of(1L, 2L));
+        assertEquals(Set.of(1L, 2L).hashCode(), SortedLongSet.of(1, 2).hashCode());
+    }
+}